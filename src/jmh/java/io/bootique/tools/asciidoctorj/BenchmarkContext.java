@@ -0,0 +1,42 @@
+package io.bootique.tools.asciidoctorj;
+
+/**
+ * Processor context for the benchmarks, with no Asciidoctor document behind it.
+ * Generated content is kept in memory and never written.
+ */
+class BenchmarkContext {
+
+    private BenchmarkContext() {
+    }
+
+    static ProcessorContext create(DocInfo docInfo) {
+        InternalLogger logger = new InternalLogger(null) {
+            @Override
+            void info(String message) {
+            }
+
+            @Override
+            void warn(String message) {
+            }
+
+            @Override
+            void error(Throwable th) {
+            }
+
+            @Override
+            void error(String message) {
+            }
+        };
+        ContentWriter writer = new ContentWriter(System.getProperty("java.io.tmpdir"), docInfo, logger);
+        return new ProcessorContext(docInfo, writer, logger);
+    }
+
+    static DocInfo docInfo(boolean multipage, int multipageLevel) {
+        DocInfo docInfo = new DocInfo("book");
+        docInfo.multipage = multipage;
+        docInfo.multipageLevel = multipageLevel;
+        docInfo.multipageHeader = "---\ntitle: \"{title}\"\nweight: {weight}\n---\n";
+        docInfo.multipageRef = "/docs/";
+        return docInfo;
+    }
+}
@@ -0,0 +1,73 @@
+package io.bootique.tools.asciidoctorj;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single page processors on a synthetic book. Each DOM-based processor is measured including the parse
+ * and serialization of its input, see {@link #parse()} for the cost of these alone.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ContentProcessorBenchmark {
+
+    @Param({"100", "1000", "5000", "20000"})
+    int sections;
+
+    String html;
+    DocInfo docInfo;
+
+    @Setup
+    public void setup() {
+        html = SyntheticBook.html(sections);
+        docInfo = BenchmarkContext.docInfo(false, 1);
+    }
+
+    @Benchmark
+    public String parse() {
+        DocumentContent content = new DocumentContent(html);
+        content.dom();
+        return content.html();
+    }
+
+    @Benchmark
+    public String toc() {
+        return process(new ProcessorToC());
+    }
+
+    @Benchmark
+    public String faIcons() {
+        return process(new ProcessorFaIcons());
+    }
+
+    @Benchmark
+    public String htmlContent() {
+        return process(new ProcessorHtmlContent());
+    }
+
+    @Benchmark
+    public String pipeline() {
+        return HugoExtension.process(BenchmarkContext.create(docInfo), html);
+    }
+
+    private String process(ContentProcessor processor) {
+        DocumentContent content = new DocumentContent(html);
+        processor.process(BenchmarkContext.create(docInfo), content);
+        return content.html();
+    }
+}
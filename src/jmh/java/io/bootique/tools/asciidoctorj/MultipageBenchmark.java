@@ -0,0 +1,65 @@
+package io.bootique.tools.asciidoctorj;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Multipage split and the full processor chain on a synthetic book, for different multipage levels,
+ * with sequential and parallel rendering of the section pages, splitting a parsed document or scanning its HTML.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MultipageBenchmark {
+
+    @Param({"100", "1000", "5000", "20000"})
+    int sections;
+
+    @Param({"1", "2", "3"})
+    int level;
+
+    @Param({"false", "true"})
+    boolean parallel;
+
+    @Param({"dom", "stream"})
+    String engine;
+
+    String html;
+    String htmlNoToC;
+    DocInfo docInfo;
+
+    @Setup
+    public void setup() {
+        html = SyntheticBook.html(sections);
+        htmlNoToC = SyntheticBook.html(sections, false);
+        docInfo = BenchmarkContext.docInfo(true, level);
+        docInfo.multipageParallel = parallel;
+        docInfo.multipageStreamEngine = "stream".equals(engine);
+    }
+
+    @Benchmark
+    public String multipage() {
+        DocumentContent content = new DocumentContent(htmlNoToC);
+        new ProcessorMultipage().process(BenchmarkContext.create(docInfo), content);
+        return content.html();
+    }
+
+    @Benchmark
+    public String pipeline() {
+        return HugoExtension.process(BenchmarkContext.create(docInfo), html);
+    }
+}
@@ -0,0 +1,58 @@
+package io.bootique.tools.asciidoctorj;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cutting the ToC out of the document and adding a header to it, as done by the ToC and front matter processors.
+ * Compare "gc.alloc.rate.norm" of the String copies and the spliced segments, run with "-prof gc".
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OutputAssemblyBenchmark {
+
+    private static final String HEADER = "---\ntitle: Synthetic book\n---\n\n";
+
+    @Param({"1000", "20000"})
+    int sections;
+
+    String html;
+    int tocStart;
+    int tocEnd;
+
+    @Setup
+    public void setup() {
+        html = SyntheticBook.html(sections);
+        tocStart = html.indexOf("<div id=\"toc\" class=\"toc\">");
+        tocEnd = html.indexOf("</ul>\n</div>", tocStart) + "</ul>\n</div>".length() + 1;
+    }
+
+    @Benchmark
+    public String stringCopies() {
+        String content = html.substring(0, tocStart) + html.substring(tocEnd);
+        return HEADER + content;
+    }
+
+    @Benchmark
+    public String segments() {
+        DocumentContent content = new DocumentContent(html);
+        content.remove(tocStart, tocEnd);
+        content.prepend(HEADER);
+        return content.html();
+    }
+}
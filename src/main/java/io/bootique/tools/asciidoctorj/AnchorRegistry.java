@@ -0,0 +1,200 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.tools.asciidoctorj;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Build-wide registry of the section and anchor ids of the multipage documents, mapped to the URLs
+ * of the pages they end up on, so links between the documents could be resolved at build time.
+ * <p>
+ * Registry is shared by all documents written to the same destination directory in a JVM, and is persisted
+ * to that directory, so documents processed before the ones they link to, and partial rebuilds, could use
+ * the ids recorded by the previous build. On a clean build links to the documents that are not converted yet
+ * can't be resolved, so they are reported, and the next build resolves them.
+ * <p>
+ * Registry is a text file with a line per id: {@code <document name> <id> <page URL>}.
+ */
+class AnchorRegistry {
+
+    static final String FILE_NAME = ".hugo-anchors";
+
+    private static final String FORMAT_LINE = "# hugo anchor registry v1";
+    private static final String DOCUMENT_EXTENSION = ".html";
+
+    private static final ConcurrentMap<Path, AnchorRegistry> REGISTRIES = new ConcurrentHashMap<>();
+
+    // document name to the id to URL mapping of that document
+    private final ConcurrentMap<String, Map<String, String>> documents = new ConcurrentHashMap<>();
+    // documents registered in this JVM, ids persisted by other builds never replace them
+    private final Set<String> registered = ConcurrentHashMap.newKeySet();
+
+    AnchorRegistry() {
+    }
+
+    /**
+     * Get registry for the file, loading it on the first use in this JVM.
+     * Any unreadable registry is treated as an empty one.
+     *
+     * @param path path of the registry file
+     * @param logger logger to report unreadable registry
+     */
+    static AnchorRegistry forFile(Path path, InternalLogger logger) {
+        return REGISTRIES.computeIfAbsent(path.toAbsolutePath().normalize(), p -> load(p, logger));
+    }
+
+    static void clear() {
+        REGISTRIES.clear();
+    }
+
+    private static AnchorRegistry load(Path path, InternalLogger logger) {
+        AnchorRegistry registry = new AnchorRegistry();
+        try {
+            Map<String, Map<String, String>> documents = read(path);
+            if(documents == null) {
+                logger.warn("Unknown anchor registry format in '" + path + "', it will be rebuilt.");
+                return registry;
+            }
+            documents.forEach((documentName, anchors) ->
+                    registry.documents.put(documentName, Collections.unmodifiableMap(anchors)));
+        } catch (IOException ex) {
+            logger.warn("Unable to read anchor registry '" + path + "': " + ex.getMessage() + ", it will be rebuilt.");
+        }
+        return registry;
+    }
+
+    /**
+     * @return ids of all documents in the registry file, empty if there is no file, or null if its format is unknown
+     */
+    private static Map<String, Map<String, String>> read(Path path) throws IOException {
+        try {
+            return parse(Files.readAllLines(path, StandardCharsets.UTF_8));
+        } catch (NoSuchFileException ex) {
+            // first build
+            return new HashMap<>();
+        }
+    }
+
+    /**
+     * @return ids of all documents in the registry, or null if its format is unknown
+     */
+    private static Map<String, Map<String, String>> parse(List<String> lines) {
+        if(lines.isEmpty() || !FORMAT_LINE.equals(lines.get(0))) {
+            return null;
+        }
+        Map<String, Map<String, String>> documents = new HashMap<>();
+        for(String line : lines.subList(1, lines.size())) {
+            String[] parts = line.split(" ", 3);
+            if(parts.length == 3) {
+                documents.computeIfAbsent(parts[0], d -> new HashMap<>()).put(parts[1], parts[2]);
+            }
+        }
+        return documents;
+    }
+
+    /**
+     * Register ids of the document, replacing ones registered before
+     *
+     * @param anchors id to the URL of the page with that id
+     */
+    void register(String documentName, Map<String, String> anchors) {
+        documents.put(documentName, Collections.unmodifiableMap(anchors));
+        registered.add(documentName);
+    }
+
+    /**
+     * Write registry to the file, merging the ids of documents registered by other builds since it was loaded.
+     * Writes of the documents converted concurrently in this JVM are serialized, and the file is atomically
+     * replaced, so a concurrent build never reads a partial registry. File is kept untouched if nothing changed.
+     */
+    synchronized void save(Path path) throws IOException {
+        String persisted;
+        try {
+            persisted = new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+        } catch (NoSuchFileException ex) {
+            persisted = null;
+        }
+        Map<String, Map<String, String>> persistedDocuments = persisted != null
+                ? parse(Arrays.asList(persisted.split("\n")))
+                : null;
+        if(persistedDocuments != null) {
+            persistedDocuments.forEach((documentName, anchors) -> {
+                if(!registered.contains(documentName)) {
+                    documents.put(documentName, Collections.unmodifiableMap(anchors));
+                }
+            });
+        }
+
+        String content = content();
+        if(content.equals(persisted)) {
+            return;
+        }
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        ContentWriter.writeAtomically(path, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return true if the link is to an id in another document, like "other.html#section", it could be resolved
+     * with this registry if that document is registered
+     */
+    static boolean isDocumentLink(String href) {
+        int hash = href.indexOf('#');
+        return hash >= DOCUMENT_EXTENSION.length() && href.startsWith(DOCUMENT_EXTENSION, hash - DOCUMENT_EXTENSION.length())
+                && !href.contains("://");
+    }
+
+    /**
+     * Resolve link to another document, like "other.html#section" or "../other.html#section".
+     *
+     * @return URL of the page with the linked id, or null if link is not to a registered document id
+     */
+    String resolve(String href) {
+        if(!isDocumentLink(href)) {
+            return null;
+        }
+        int hash = href.indexOf('#');
+        String documentName = href.substring(href.lastIndexOf('/', hash) + 1, hash - DOCUMENT_EXTENSION.length());
+        Map<String, String> anchors = documents.get(documentName);
+        return anchors != null ? anchors.get(href.substring(hash + 1)) : null;
+    }
+
+    /**
+     * @return registry file content, sorted by document and id, so it diffs cleanly between builds
+     */
+    String content() {
+        StringBuilder sb = new StringBuilder(FORMAT_LINE).append('\n');
+        new TreeMap<>(documents).forEach((documentName, anchors) -> new TreeMap<>(anchors).forEach((id, url) ->
+                sb.append(documentName).append(' ').append(id).append(' ').append(url).append('\n')));
+        return sb.toString();
+    }
+}
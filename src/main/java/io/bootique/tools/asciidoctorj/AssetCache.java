@@ -0,0 +1,76 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.tools.asciidoctorj;
+
+import org.asciidoctor.ast.Document;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+
+/**
+ * JVM-wide cache of the assets read by the documents (like header files), so each of them is read only once per build.
+ * <p>
+ * Relative file names are resolved against the document directory first, so documents in different directories
+ * get their own assets with the same name, and then against the working directory.
+ */
+class AssetCache {
+
+    private static final FileStampCache<String> CACHE = new FileStampCache<>();
+
+    private AssetCache() {
+    }
+
+    /**
+     * Read asset using the document, or get it from the cache if the file is unchanged since the last read.
+     *
+     * @param document document to read asset with
+     * @param fileName asset file name, relative to the document directory or to the working directory
+     * @return asset content or null if it can't be read
+     */
+    static String read(Document document, String fileName) {
+        try {
+            return CACHE.get(resolve(document, fileName),
+                    path -> document.readAsset(path.toString(), Collections.emptyMap()));
+        } catch (IOException | InvalidPathException ex) {
+            // let Asciidoctor deal with it
+            return document.readAsset(fileName, Collections.emptyMap());
+        }
+    }
+
+    private static Path resolve(Document document, String fileName) {
+        Path path = Paths.get(fileName);
+        String docDir = document.getAttribute("docdir", "").toString();
+        if(!path.isAbsolute() && !docDir.isEmpty()) {
+            Path documentAsset = Paths.get(docDir).resolve(path);
+            if(Files.exists(documentAsset)) {
+                return documentAsset.toAbsolutePath().normalize();
+            }
+        }
+        return path.toAbsolutePath().normalize();
+    }
+
+    static void clear() {
+        CACHE.clear();
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.tools.asciidoctorj;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Content-hashed names of the asset files. Hashes are cached JVM-wide, so each asset is hashed only once per build,
+ * no matter how many pages and documents reference it.
+ */
+class AssetFingerprints {
+
+    // number of the hash hex digits in the file name
+    private static final int HASH_LENGTH = 12;
+
+    private static final FileStampCache<String> CACHE = new FileStampCache<>();
+
+    private AssetFingerprints() {
+    }
+
+    /**
+     * @param file asset file
+     * @return file name with the content hash added before the extension, like "image.0123456789ab.png"
+     */
+    static String fingerprintedName(Path file) throws IOException {
+        return fingerprintedName(file.getFileName().toString(), hash(file));
+    }
+
+    /**
+     * @param file asset file
+     * @return truncated hex SHA-256 of the file content
+     */
+    static String hash(Path file) throws IOException {
+        return CACHE.get(file, AssetFingerprints::computeHash);
+    }
+
+    static String fingerprintedName(String fileName, String hash) {
+        int extension = fileName.lastIndexOf('.');
+        return extension > 0
+                ? fileName.substring(0, extension) + '.' + hash + fileName.substring(extension)
+                : fileName + '.' + hash;
+    }
+
+    static void clear() {
+        CACHE.clear();
+    }
+
+    private static String computeHash(Path path) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+        byte[] buffer = new byte[8192];
+        try(InputStream in = Files.newInputStream(path)) {
+            int read;
+            while((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        StringBuilder sb = new StringBuilder(HASH_LENGTH);
+        for(byte b : digest.digest()) {
+            sb.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            if(sb.length() >= HASH_LENGTH) {
+                break;
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.tools.asciidoctorj;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * JVM-wide report for all the documents processed in a build, written as a JSON file.
+ * <p>
+ * The file is created by the first document of a build, and each next document is appended to it
+ * in the processing order, so the file is always a valid JSON with every document processed so far,
+ * and only the new document is written each time.
+ * <p>
+ * A document is processed only once per build, so a document that is already in the report starts a new build
+ * in a long-running JVM, and the report of the previous build is replaced.
+ */
+class BuildReport {
+
+    static final String DEFAULT_FILE_NAME = "hugo-extension-report.json";
+
+    // one entry per report file, its state is reset when a new build starts
+    private static final ConcurrentMap<Path, BuildReport> REPORTS = new ConcurrentHashMap<>();
+
+    private final Path path;
+    // names of the documents of the current build
+    private final Set<String> documents = new HashSet<>();
+    // closing brackets of the documents array, without them the file ends with the last document
+    private String footer;
+
+    private BuildReport(Path path) {
+        this.path = path;
+    }
+
+    static BuildReport forFile(Path path) {
+        return REPORTS.computeIfAbsent(path.toAbsolutePath().normalize(), BuildReport::new);
+    }
+
+    static void clear() {
+        REPORTS.clear();
+    }
+
+    /**
+     * Append document report to the report file, replacing the closing brackets of the documents array.
+     * Report file from a previous build is replaced by the first document.
+     */
+    synchronized void add(ProcessingReport report) throws IOException {
+        if(!documents.add(report.documentName())) {
+            // same document again, a new build has started
+            documents.clear();
+            documents.add(report.documentName());
+            footer = null;
+        }
+
+        StringBuilder sb = new StringBuilder();
+        JsonWriter json = new JsonWriter(sb);
+        json.beginObject().name("documents").beginArray();
+        int documentStart = sb.length();
+        report.writeJson(json);
+        int documentEnd = sb.length();
+        json.endArray().endObject();
+        sb.append('\n');
+
+        if(footer != null && appendDocument(sb.substring(documentStart, documentEnd))) {
+            return;
+        }
+        footer = sb.substring(documentEnd);
+        Files.createDirectories(path.getParent());
+        Files.write(path, sb.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return false if the report file doesn't end with the documents array written before, so it has to be rewritten
+     */
+    private boolean appendDocument(String document) throws IOException {
+        if(!Files.exists(path)) {
+            return false;
+        }
+        byte[] footerBytes = footer.getBytes(StandardCharsets.UTF_8);
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long footerStart = channel.size() - footerBytes.length;
+            if(footerStart < 0) {
+                return false;
+            }
+            ByteBuffer existingFooter = ByteBuffer.allocate(footerBytes.length);
+            while(existingFooter.hasRemaining()) {
+                if(channel.read(existingFooter, footerStart + existingFooter.position()) < 0) {
+                    return false;
+                }
+            }
+            existingFooter.flip();
+            if(!ByteBuffer.wrap(footerBytes).equals(existingFooter)) {
+                return false;
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(("," + document + footer).getBytes(StandardCharsets.UTF_8));
+            long position = footerStart;
+            while(buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+        }
+        return true;
+    }
+}
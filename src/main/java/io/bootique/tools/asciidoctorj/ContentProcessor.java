@@ -19,8 +19,36 @@
 
 package io.bootique.tools.asciidoctorj;
 
-interface ContentProcessor {
+/**
+ * Single step of the document processing chain.
+ * <p>
+ * Processors could work either with the HTML string or with the parsed DOM of the {@link DocumentContent},
+ * the content is parsed and serialized only when the representation changes between the processors.
+ * <p>
+ * Implementations must be stateless, as a single instance is shared by all documents that could be converted
+ * concurrently. Any per-document state should be kept in the objects created for a single {@link #process} call.
+ * <p>
+ * Third-party processors could be registered with the {@link java.util.ServiceLoader} mechanism, by listing them in
+ * the {@code META-INF/services/io.bootique.tools.asciidoctorj.ContentProcessor} file, and enabled for a document
+ * by their {@link #name()} in the "hugo-processors" attribute.
+ */
+public interface ContentProcessor {
+
+    /**
+     * @return name of the processor used in the "hugo-processors" attribute
+     */
+    String name();
+
+    /**
+     * Cheap check if the processor has anything to do with the document, called right before the {@link #process} call.
+     * It should not parse the content, so a processor that is not used costs close to nothing.
+     *
+     * @return false if processing should be skipped
+     */
+    default boolean isApplicable(ProcessorContext context, DocumentContent content) {
+        return true;
+    }
 
-    String process(ProcessorContext context, String content);
+    void process(ProcessorContext context, DocumentContent content);
 
 }
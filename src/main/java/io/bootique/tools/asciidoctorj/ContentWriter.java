@@ -23,89 +23,662 @@ import org.asciidoctor.Options;
 import org.asciidoctor.ast.Document;
 
 import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
 
 class ContentWriter {
 
-    private final List<Content> generatedContent = new ArrayList<>(2);
+    // generated content by its location, in the order it was first added
+    private final Map<ContentKey, Content> generatedContent = new LinkedHashMap<>();
+    // content written only if the rest of the content is written successfully
+    private final Map<ContentKey, Content> contentOnSuccess = new LinkedHashMap<>();
     private final String destinationDir;
+    private final int writeThreads;
+    private final boolean skipUnchanged;
     private final InternalLogger logger;
 
-    ContentWriter(Document document, InternalLogger logger) {
+    private final List<Exception> failures = Collections.synchronizedList(new ArrayList<>());
+    private final Set<Path> createdDirectories = ConcurrentHashMap.newKeySet();
+    private final Set<Path> failedDirectories = ConcurrentHashMap.newKeySet();
+
+    private final AtomicInteger writtenCounter = new AtomicInteger();
+    private final AtomicInteger skippedCounter = new AtomicInteger();
+    private final AtomicInteger streamedCounter = new AtomicInteger();
+
+    // gzip compression level, or NO_COMPRESSION if compressed siblings are not written
+    private final int compressionLevel;
+    // compression tasks of this writer, the writer itself is a registered party
+    private final Phaser compressions = new Phaser(1);
+    private final AtomicInteger compressedCounter = new AtomicInteger();
+    private final AtomicInteger compressionSkippedCounter = new AtomicInteger();
+
+    private static final int NO_COMPRESSION = -2;
+    private static final String GZIP_EXTENSION = ".gz";
+    // gzip header with an "extra" field recording the compression level (subfield id "Hl"), so a compressed file
+    // is not taken for unchanged after the level changes. Last byte is the level itself.
+    private static final byte[] GZIP_HEADER = {
+            0x1f, (byte) 0x8b, Deflater.DEFLATED, 0x04,  // magic, compression method, FEXTRA flag
+            0, 0, 0, 0,                                   // no modification time
+            0, (byte) 0xff,                               // no extra flags, unknown OS
+            5, 0,                                         // extra field length
+            'H', 'l', 1, 0, 0                             // subfield id, its length and the level
+    };
+    private static final int GZIP_TRAILER_LENGTH = 8;
+    // compression tasks queued per compressor thread, when the queue is full the writer thread compresses itself
+    private static final int COMPRESSION_QUEUE_PER_THREAD = 2;
+
+    /**
+     * Compressor pool shared by all the writers, so concurrent documents don't multiply compressor threads.
+     * It has a bounded queue, so only a limited number of pages wait for compression in memory,
+     * and its threads exit when idle, so it doesn't need to be shut down.
+     */
+    private static final ThreadPoolExecutor COMPRESSOR = createCompressor();
+
+    ContentWriter(Document document, DocInfo docInfo, InternalLogger logger) {
+        this(destinationDir(document, logger), docInfo, logger);
+    }
+
+    ContentWriter(String destinationDir, DocInfo docInfo, InternalLogger logger) {
+        this.destinationDir = destinationDir;
+        this.writeThreads = docInfo.writeThreads();
+        this.skipUnchanged = docInfo.skipUnchanged();
+        this.compressionLevel = docInfo.precompress() ? docInfo.precompressLevel() : NO_COMPRESSION;
+        this.logger = logger;
+    }
+
+    private static String destinationDir(Document document, InternalLogger logger) {
         Object destDir = document.getOptions().get(Options.TO_DIR);
         if(destDir == null) {
             logger.error("No destination directory");
             throw new IllegalStateException("No destination directory found");
         }
-        destinationDir = destDir.toString();
-        this.logger = logger;
+        return destDir.toString();
+    }
+
+    String destinationDir() {
+        return destinationDir;
+    }
+
+    void addContent(String fileName, CharSequence content) {
+        addContent(fileName, null, content);
+    }
+
+    /**
+     * Add new content to write, if there is a content for the same file already it is replaced with a warning.
+     */
+    void addContent(String fileName, String folder, CharSequence content) {
+        Content previous = generatedContent.put(new ContentKey(fileName, folder), new Content(fileName, folder, content));
+        if(previous != null) {
+            logger.warn("Content for the file '" + previous.path(destinationDir)
+                    + "' is generated more than once, previous content is replaced.");
+        }
     }
 
-    void addContent(String fileName, String content) {
-        generatedContent.add(new Content(fileName, null, content));
+    /**
+     * Add content to write, replacing any content generated for the same file before.
+     */
+    void replaceContent(String fileName, String folder, CharSequence content) {
+        generatedContent.put(new ContentKey(fileName, folder), new Content(fileName, folder, content));
     }
 
-    void addContent(String fileName, String folder, String content) {
-        generatedContent.add(new Content(fileName, folder, content));
+    /**
+     * Add content that is rendered only when it is written, replacing any content generated for the same file before.
+     * <p>
+     * Rendered content is not kept, so only the content of the files being written is in memory at a time.
+     * Content supplier could be called from the writer threads, so it should not change any shared state.
+     */
+    void replaceContent(String fileName, String folder, Supplier<? extends CharSequence> content) {
+        generatedContent.put(new ContentKey(fileName, folder), new Content(fileName, folder, content));
+    }
+
+    /**
+     * Add content that is written after the rest of the content and only if all of it was written successfully,
+     * like a manifest of the generated files, that must not record the files that failed to write.
+     */
+    void replaceContentOnSuccess(String fileName, String folder, CharSequence content) {
+        contentOnSuccess.put(new ContentKey(fileName, folder), new Content(fileName, folder, content));
+    }
+
+    /**
+     * Add content that is rendered after the rest of the content is written and only if all of it was written
+     * successfully, so it could use the state collected while the rest of the content was rendered.
+     */
+    void replaceContentOnSuccess(String fileName, String folder, Supplier<? extends CharSequence> content) {
+        contentOnSuccess.put(new ContentKey(fileName, folder), new Content(fileName, folder, content));
     }
 
     String getContent(String fileName, String folder) {
-        for(Content content : generatedContent) {
-            if(Objects.equals(fileName, content.fileName) && Objects.equals(folder, content.folder)) {
-                return content.content;
+        Content content = generatedContent.get(new ContentKey(fileName, folder));
+        return content != null ? content.content().toString() : null;
+    }
+
+    /**
+     * @return number of chars of the content kept in memory until the {@link #flush()}, not counting lazy content
+     */
+    long bufferedChars() {
+        long chars = 0;
+        for(Content content : generatedContent.values()) {
+            if(content.content != null) {
+                chars += content.content.length();
             }
         }
-        return null;
+        return chars;
+    }
+
+    /**
+     * @return number of files generated so far, both registered and already written directly
+     */
+    int contentCount() {
+        return generatedContent.size() + contentOnSuccess.size() + streamedCounter.get();
+    }
+
+    /**
+     * Write content to the file right away, without keeping it until the {@link #flush()}.
+     * Any failures are reported by the {@link #flush()} call along with the rest of the content.
+     */
+    void writeContent(String fileName, String folder, CharSequence content) {
+        Path path = path(destinationDir, folder, fileName);
+        streamedCounter.incrementAndGet();
+        if(createDirectory(path.getParent())) {
+            write(path, content);
+        }
+    }
+
+    /**
+     * Delete previously generated file right away, any failure is reported by the {@link #flush()} call.
+     */
+    void deleteContent(String fileName, String folder) {
+        try {
+            Path path = path(destinationDir, folder, fileName);
+            Files.deleteIfExists(path);
+            Files.deleteIfExists(gzipPath(path));
+        } catch (IOException ex) {
+            failures.add(ex);
+        }
     }
 
+    /**
+     * @return path of the file the content with given name is written to
+     */
+    Path filePath(String fileName, String folder) {
+        return path(destinationDir, folder, fileName);
+    }
+
+    /**
+     * Write all generated content to the destination directory.
+     * <p>
+     * Files are written by the configured number of threads, each distinct directory is created only once.
+     * All failures, including ones for the content written directly, are collected and reported together after
+     * every file was processed. Content added with {@link #replaceContentOnSuccess} is written last, if there were
+     * no failures before.
+     * <p>
+     * If "hugo-skip-unchanged" is set, files that already have the same content are left untouched,
+     * and changed files are written to a temporary file first and atomically moved in place.
+     * <p>
+     * If "hugo-precompress" is set, a gzip compressed sibling is written for each file on a separate worker pool,
+     * it is recompressed only if the file content changed.
+     */
     void flush() {
+        Collection<Content> contents = generatedContent.values();
+        List<Content> contentToWrite = new ArrayList<>(contents.size());
+        contents.forEach(content -> {
+            if(createDirectory(content.path(destinationDir).getParent())) {
+                contentToWrite.add(content);
+            }
+        });
+
+        int threads = Math.min(writeThreads, contentToWrite.size());
+        try {
+            if(threads <= 1) {
+                contentToWrite.forEach(this::write);
+            } else {
+                writeParallel(contentToWrite, threads);
+            }
+            if(failures.isEmpty()) {
+                contentOnSuccess.values().forEach(content -> {
+                    if(createDirectory(content.path(destinationDir).getParent())) {
+                        write(content);
+                    }
+                });
+            }
+        } finally {
+            // wait for the compression of all written files, streamed ones included
+            compressions.arriveAndAwaitAdvance();
+        }
+
+        if(skipUnchanged) {
+            logger.info("Generated files for '" + destinationDir + "': " + writtenCounter.get() + " written, "
+                    + skippedCounter.get() + " unchanged");
+        }
+        if(compressionLevel != NO_COMPRESSION) {
+            logger.info("Compressed files for '" + destinationDir + "': " + compressedCounter.get() + " compressed, "
+                    + compressionSkippedCounter.get() + " unchanged");
+        }
+
+        if(!failures.isEmpty()) {
+            failures.forEach(logger::error);
+            RuntimeException exception = new RuntimeException("Unable to write " + failures.size()
+                    + " generated file(s) to '" + destinationDir + "'", failures.get(0));
+            failures.stream().skip(1).forEach(exception::addSuppressed);
+            throw exception;
+        }
+    }
+
+    private void writeParallel(List<Content> contentToWrite, int threads) {
+        ExecutorService executor = newExecutor(threads, "hugo-content-writer-");
+        try {
+            List<Future<?>> futures = new ArrayList<>(contentToWrite.size());
+            contentToWrite.forEach(content -> futures.add(executor.submit(() -> write(content))));
+            for(Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException ex) {
+                    failures.add(ex.getCause() instanceof Exception ? (Exception) ex.getCause() : ex);
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while writing generated content", ex);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static ExecutorService newExecutor(int threads, String namePrefix) {
+        return Executors.newFixedThreadPool(threads, daemonThreadFactory(namePrefix));
+    }
+
+    private static ThreadFactory daemonThreadFactory(String namePrefix) {
+        AtomicInteger threadCounter = new AtomicInteger();
+        return r -> {
+            Thread thread = new Thread(r, namePrefix + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static ThreadPoolExecutor createCompressor() {
+        int threads = Runtime.getRuntime().availableProcessors();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(threads * COMPRESSION_QUEUE_PER_THREAD),
+                daemonThreadFactory("hugo-content-compressor-"),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Compress content to a ".gz" sibling of the file on the shared compressor pool, unless the existing sibling
+     * has the same CRC32 and size of the uncompressed content in its trailer. If the pool queue is full,
+     * content is compressed by the calling thread, so writing can't outrun the compression.
+     */
+    private void compress(Path path, byte[] content) {
+        compressions.register();
+        try {
+            COMPRESSOR.execute(() -> {
+                try {
+                    Path gzipPath = gzipPath(path);
+                    CRC32 crc = new CRC32();
+                    crc.update(content, 0, content.length);
+                    byte[] header = gzipHeader(compressionLevel);
+                    if(isSameGzip(gzipPath, header, crc.getValue(), content.length)) {
+                        compressionSkippedCounter.incrementAndGet();
+                        return;
+                    }
+                    ByteArrayOutputStream out = new ByteArrayOutputStream(content.length / 4 + 64);
+                    out.write(header);
+                    Deflater deflater = new Deflater(compressionLevel, true);
+                    try (DeflaterOutputStream deflate = new DeflaterOutputStream(out, deflater, 8192)) {
+                        deflate.write(content);
+                        deflate.finish();
+                        ByteBuffer trailer = ByteBuffer.allocate(GZIP_TRAILER_LENGTH).order(ByteOrder.LITTLE_ENDIAN);
+                        trailer.putInt((int) crc.getValue()).putInt(content.length);
+                        out.write(trailer.array());
+                    } finally {
+                        deflater.end();
+                    }
+                    writeAtomically(gzipPath, out.toByteArray());
+                    compressedCounter.incrementAndGet();
+                } catch (IOException ex) {
+                    failures.add(ex);
+                } finally {
+                    compressions.arriveAndDeregister();
+                }
+            });
+        } catch (RuntimeException ex) {
+            compressions.arriveAndDeregister();
+            throw ex;
+        }
+    }
+
+    private static Path gzipPath(Path path) {
+        return path.resolveSibling(path.getFileName() + GZIP_EXTENSION);
+    }
+
+    /**
+     * Check gzip trailer: CRC32 and size (modulo 2^32) of the uncompressed content, both little-endian
+     */
+    private static byte[] gzipHeader(int level) {
+        byte[] header = GZIP_HEADER.clone();
+        header[header.length - 1] = (byte) level;
+        return header;
+    }
+
+    /**
+     * @return true if gzip file has the same header, so it is compressed with the same level,
+     * and its trailer has the same CRC and size of the uncompressed content
+     */
+    private static boolean isSameGzip(Path gzipPath, byte[] header, long crc, long size) throws IOException {
+        if(!Files.isRegularFile(gzipPath)) {
+            return false;
+        }
+        try (SeekableByteChannel channel = Files.newByteChannel(gzipPath, StandardOpenOption.READ)) {
+            if(channel.size() < header.length + GZIP_TRAILER_LENGTH) {
+                return false;
+            }
+            ByteBuffer existingHeader = ByteBuffer.allocate(header.length);
+            readFully(channel, existingHeader, 0);
+            if(!ByteBuffer.wrap(header).equals(existingHeader)) {
+                return false;
+            }
+            ByteBuffer trailer = ByteBuffer.allocate(GZIP_TRAILER_LENGTH).order(ByteOrder.LITTLE_ENDIAN);
+            readFully(channel, trailer, channel.size() - GZIP_TRAILER_LENGTH);
+            return trailer.remaining() == GZIP_TRAILER_LENGTH
+                    && (trailer.getInt() & 0xffffffffL) == crc
+                    && (trailer.getInt() & 0xffffffffL) == (size & 0xffffffffL);
+        }
+    }
+
+    /**
+     * Read buffer from the position, and flip it
+     */
+    private static void readFully(SeekableByteChannel channel, ByteBuffer buffer, long position) throws IOException {
+        channel.position(position);
+        while(buffer.hasRemaining() && channel.read(buffer) > 0) {
+            // read fully
+        }
+        buffer.flip();
+    }
+
+    /**
+     * Create directory once, recording the failure if it can't be created
+     *
+     * @return true if directory exists
+     */
+    private boolean createDirectory(Path directory) {
+        if(createdDirectories.contains(directory)) {
+            return true;
+        }
+        if(failedDirectories.contains(directory)) {
+            return false;
+        }
+        try {
+            Files.createDirectories(directory);
+            createdDirectories.add(directory);
+            return true;
+        } catch (IOException ex) {
+            if(failedDirectories.add(directory)) {
+                failures.add(ex);
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Write registered content, failure of its lazy supplier is collected the same way as the write failures.
+     */
+    private void write(Content content) {
+        CharSequence chars;
+        try {
+            chars = content.content();
+        } catch (RuntimeException ex) {
+            failures.add(ex);
+            return;
+        }
+        write(content.path(destinationDir), chars);
+    }
+
+    private void write(Path path, CharSequence content) {
+        try {
+            if(compressionLevel != NO_COMPRESSION) {
+                byte[] bytes = toBytes(content);
+                if(skipUnchanged) {
+                    writeIfChanged(path, bytes);
+                } else {
+                    Files.write(path, bytes);
+                    writtenCounter.incrementAndGet();
+                }
+                compress(path, bytes);
+            } else if(skipUnchanged) {
+                writeIfChanged(path, toBytes(content));
+            } else {
+                writeDirectly(path, content);
+            }
+        } catch (IOException ex) {
+            failures.add(ex);
+        }
+    }
+
+    private void writeDirectly(Path path, CharSequence content) throws IOException {
         StandardOpenOption[] fileOptions = {
                 StandardOpenOption.TRUNCATE_EXISTING,
                 StandardOpenOption.CREATE,
                 StandardOpenOption.WRITE
         };
-        generatedContent.forEach(content -> {
-            Path path = content.path(destinationDir);
-            try {
-                Files.createDirectories(path.getParent());
-            } catch (IOException ex) {
-                logger.error(ex);
-                throw new RuntimeException(ex);
+        try (BufferedWriter br = Files.newBufferedWriter(path, fileOptions)) {
+            writeChars(br, content);
+            br.flush();
+        }
+        writtenCounter.incrementAndGet();
+    }
+
+    /**
+     * Write chars without creating an intermediate String copy of the content
+     */
+    static void writeChars(Writer writer, CharSequence content) throws IOException {
+        if(content instanceof String) {
+            writer.write((String) content, 0, content.length());
+            return;
+        }
+        if(content instanceof SegmentedContent) {
+            ((SegmentedContent) content).writeTo(writer);
+            return;
+        }
+        char[] buffer = new char[8192];
+        int length = content.length();
+        for(int start = 0; start < length; start += buffer.length) {
+            int end = Math.min(length, start + buffer.length);
+            if(content instanceof StringBuilder) {
+                ((StringBuilder) content).getChars(start, end, buffer, 0);
+            } else {
+                for(int i = start; i < end; i++) {
+                    buffer[i - start] = content.charAt(i);
+                }
             }
-            try (BufferedWriter br = Files.newBufferedWriter(path, fileOptions)) {
-                br.write(content.content, 0, content.content.length());
-                br.flush();
-            } catch (IOException ex) {
-                logger.error(ex);
-                throw new RuntimeException(ex);
+            writer.write(buffer, 0, end - start);
+        }
+    }
+
+    private static byte[] toBytes(CharSequence content) throws IOException {
+        if(content instanceof String) {
+            return ((String) content).getBytes(StandardCharsets.UTF_8);
+        }
+        if(content instanceof SegmentedContent) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(content.length());
+            try (Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8)) {
+                ((SegmentedContent) content).writeTo(writer);
             }
-        });
+            return out.toByteArray();
+        }
+        ByteBuffer buffer = StandardCharsets.UTF_8.encode(CharBuffer.wrap(content));
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    private void writeIfChanged(Path path, byte[] content) throws IOException {
+        if(isSameContent(path, content)) {
+            skippedCounter.incrementAndGet();
+            return;
+        }
+
+        writeAtomically(path, content);
+        writtenCounter.incrementAndGet();
+    }
+
+    /**
+     * Write content to a temporary sibling file and move it in place. Temporary file is created the same way as
+     * the regular files (not with {@link Files#createTempFile}), so it gets the default permissions rather than
+     * owner-only ones.
+     */
+    static void writeAtomically(Path path, byte[] content) throws IOException {
+        Path tmpFile = temporarySibling(path);
+        try {
+            Files.write(tmpFile, content, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+            moveInPlace(tmpFile, path);
+        } finally {
+            Files.deleteIfExists(tmpFile);
+        }
+    }
+
+    /**
+     * Copy file to a temporary sibling of the target and move it in place, so concurrent copies of the same
+     * file never see or leave a partially written target.
+     */
+    static void copyAtomically(Path source, Path target) throws IOException {
+        Path tmpFile = temporarySibling(target);
+        try {
+            Files.copy(source, tmpFile);
+            moveInPlace(tmpFile, target);
+        } finally {
+            Files.deleteIfExists(tmpFile);
+        }
+    }
+
+    private static Path temporarySibling(Path path) {
+        return path.resolveSibling("." + path.getFileName() + "."
+                + Long.toHexString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE) + ".tmp");
+    }
+
+    private static void moveInPlace(Path tmpFile, Path path) throws IOException {
+        try {
+            Files.move(tmpFile, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(tmpFile, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static boolean isSameContent(Path path, byte[] content) throws IOException {
+        if(!Files.isRegularFile(path) || Files.size(path) != content.length) {
+            return false;
+        }
+        return Arrays.equals(Files.readAllBytes(path), content);
+    }
+
+    /**
+     * Path is normalized, so file names relative to the destination directory could point outside of it
+     * (e.g. to the Hugo "data" folder) before that directory is created.
+     */
+    private static Path path(String destDir, String folder, String fileName) {
+        if(folder != null) {
+            return Paths.get(destDir, folder, fileName).normalize();
+        } else {
+            return Paths.get(destDir, fileName).normalize();
+        }
+    }
+
+    static final class ContentKey {
+        final String fileName;
+        final String folder;
+
+        ContentKey(String fileName, String folder) {
+            this.fileName = fileName;
+            this.folder = folder;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if(this == o) {
+                return true;
+            }
+            if(!(o instanceof ContentKey)) {
+                return false;
+            }
+            ContentKey that = (ContentKey) o;
+            return fileName.equals(that.fileName) && Objects.equals(folder, that.folder);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * fileName.hashCode() + Objects.hashCode(folder);
+        }
     }
 
     static class Content {
         final String fileName;
         final String folder;
-        final String content;
+        // either content or a supplier rendering it
+        final CharSequence content;
+        final Supplier<? extends CharSequence> contentSupplier;
 
-        Content(String fileName, String folder, String content) {
+        Content(String fileName, String folder, CharSequence content) {
             this.fileName = fileName;
             this.folder = folder;
             this.content = content;
+            this.contentSupplier = null;
+        }
+
+        Content(String fileName, String folder, Supplier<? extends CharSequence> contentSupplier) {
+            this.fileName = fileName;
+            this.folder = folder;
+            this.content = null;
+            this.contentSupplier = contentSupplier;
+        }
+
+        CharSequence content() {
+            return content != null ? content : contentSupplier.get();
         }
 
         Path path(String destDir) {
-            if(folder != null) {
-                return Paths.get(destDir, folder, fileName);
-            } else {
-                return Paths.get(destDir, fileName);
-            }
+            return ContentWriter.path(destDir, folder, fileName);
         }
     }
 
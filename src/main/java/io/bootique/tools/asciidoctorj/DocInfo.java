@@ -22,21 +22,49 @@ package io.bootique.tools.asciidoctorj;
 import org.asciidoctor.Options;
 import org.asciidoctor.ast.Document;
 
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.Properties;
+import java.util.zip.Deflater;
 
 class DocInfo {
 
     private static final String EMPTY_FRONT_MATTER = "---\n---\n\n";
+    private static final String DOCUMENT_PLACEHOLDER = "{document}";
     private static final int MULTIPAGE_DEFAULT_LEVEL = 1;
+    private static final int WRITE_THREADS_DEFAULT = 1;
+    private static final int IMAGE_EAGER_COUNT_DEFAULT = 1;
 
     private static final String HEADER = "hugo-header";
     private static final String MULTIPAGE = "hugo-multipage";
     private static final String MULTIPAGE_LEVEL = "hugo-multipage-level";
     private static final String MULTIPAGE_HEADER = "hugo-multipage-header";
     private static final String MULTIPAGE_REF = "hugo-multipage-ref";
+    private static final String MULTIPAGE_STREAMING = "hugo-multipage-streaming";
+    private static final String MULTIPAGE_INCREMENTAL = "hugo-multipage-incremental";
+    private static final String MULTIPAGE_PARALLEL = "hugo-multipage-parallel";
+    private static final String MULTIPAGE_ENGINE = "hugo-multipage-engine";
     private static final String FONT_AWESOME_ICONS = "hugo-font-awesome-icons";
+    private static final String FONT_AWESOME_VERSION = "hugo-font-awesome-version";
+    private static final String FONT_AWESOME_MAPPING = "hugo-font-awesome-mapping";
     private static final String KEEP_PREAMBLE = "hugo-keep-preamble";
+    private static final String ASSET_FINGERPRINT = "hugo-asset-fingerprint";
+    private static final String IMAGE_ATTRIBUTES = "hugo-image-attributes";
+    private static final String IMAGE_EAGER_COUNT = "hugo-image-eager-count";
+    private static final String WRITE_THREADS = "hugo-write-threads";
+    private static final String SKIP_UNCHANGED = "hugo-skip-unchanged";
+    private static final String PRECOMPRESS = "hugo-precompress";
+    private static final String PRECOMPRESS_LEVEL = "hugo-precompress-level";
+    private static final String REPORT = "hugo-report";
+    private static final String PROCESSORS = "hugo-processors";
+    private static final String TOC_DATA = "hugo-toc-data";
+    private static final String ANCHOR_REGISTRY = "hugo-anchor-registry";
+    private static final String SEARCH_INDEX = "hugo-search-index";
+    private static final String SEARCH_INDEX_TEXT_LENGTH = "hugo-search-index-text-length";
 
     String documentName;
     String header;
@@ -44,15 +72,54 @@ class DocInfo {
     boolean multipage;
     int multipageLevel;
     String multipageRef;
+    boolean multipageStreaming;
+    boolean multipageIncremental;
+    boolean multipageParallel;
+    boolean multipageStreamEngine;
     boolean convertToFa;
+    IconMapping iconMapping;
     private boolean keepPreamble;
+    boolean assetFingerprint;
+    boolean imageAttributes;
+    int eagerImages;
+    String sourceDir;
+    int writeThreads;
+    boolean skipUnchanged;
+    boolean precompress;
+    int precompressLevel;
+    String reportFile;
+    List<String> processors;
+    String tocDataFile;
+    boolean anchorRegistry;
+    boolean searchIndex;
+    int searchIndexTextLength;
+    private Map<String, Object> attributes;
+
+    /**
+     * Create document info with default settings, used when there is no Asciidoctor document (e.g. in benchmarks)
+     */
+    DocInfo(String documentName) {
+        this.documentName = documentName;
+        header = EMPTY_FRONT_MATTER;
+        multipageHeader = EMPTY_FRONT_MATTER;
+        multipageLevel = MULTIPAGE_DEFAULT_LEVEL;
+        multipageRef = "";
+        convertToFa = true;
+        iconMapping = IconMapping.forVersion(IconMapping.DEFAULT_VERSION);
+        writeThreads = WRITE_THREADS_DEFAULT;
+        sourceDir = "";
+        eagerImages = IMAGE_EAGER_COUNT_DEFAULT;
+        precompressLevel = Deflater.DEFAULT_COMPRESSION;
+        attributes = Collections.emptyMap();
+    }
 
     @SuppressWarnings("unchecked")
     DocInfo(Document document, InternalLogger logger) {
         documentName = ((Map<String, ?>)document.getOptions().get(Options.ATTRIBUTES)).get("docname").toString();
+        attributes = document.getAttributes();
         String headerFile = document.getAttribute(HEADER, "").toString();
         if(!headerFile.isEmpty()) {
-            header = document.readAsset(headerFile, Collections.emptyMap());
+            header = AssetCache.read(document, headerFile);
             if(header == null) {
                 logger.warn("Header file '" + headerFile + "' not found. Using a default header.");
                 header = EMPTY_FRONT_MATTER;
@@ -66,7 +133,7 @@ class DocInfo {
                 .getAttribute(MULTIPAGE_LEVEL, MULTIPAGE_DEFAULT_LEVEL).toString());
         String multipageHeaderFile = document.getAttribute(MULTIPAGE_HEADER, "").toString();
         if(!multipageHeaderFile.isEmpty()) {
-            multipageHeader = document.readAsset(multipageHeaderFile, Collections.emptyMap());
+            multipageHeader = AssetCache.read(document, multipageHeaderFile);
             if(multipageHeader == null) {
                 logger.warn("Multipage header file '" + multipageHeaderFile + "' not found. Using a default header.");
                 multipageHeader = EMPTY_FRONT_MATTER;
@@ -75,9 +142,138 @@ class DocInfo {
             multipageHeader = EMPTY_FRONT_MATTER;
         }
         multipageRef = document.getAttribute(MULTIPAGE_REF, "").toString();
+        multipageStreaming = Boolean.parseBoolean(document
+                .getAttribute(MULTIPAGE_STREAMING, "false").toString());
+        multipageIncremental = Boolean.parseBoolean(document
+                .getAttribute(MULTIPAGE_INCREMENTAL, "false").toString());
+        multipageParallel = Boolean.parseBoolean(document
+                .getAttribute(MULTIPAGE_PARALLEL, "false").toString());
+        String engine = document.getAttribute(MULTIPAGE_ENGINE, "dom").toString();
+        multipageStreamEngine = "stream".equals(engine);
+        if(!multipageStreamEngine && !"dom".equals(engine)) {
+            logger.warn("Unknown multipage engine '" + engine + "'. Using a 'dom' engine.");
+        }
         convertToFa = Boolean.parseBoolean(document
                 .getAttribute(FONT_AWESOME_ICONS, "true").toString());
+        iconMapping = readIconMapping(document, logger);
         keepPreamble = Boolean.parseBoolean(document.getAttribute(KEEP_PREAMBLE, "false").toString());
+        assetFingerprint = Boolean.parseBoolean(document.getAttribute(ASSET_FINGERPRINT, "false").toString());
+        sourceDir = document.getAttribute("docdir", "").toString();
+        imageAttributes = Boolean.parseBoolean(document.getAttribute(IMAGE_ATTRIBUTES, "false").toString());
+        eagerImages = Integer.parseInt(document
+                .getAttribute(IMAGE_EAGER_COUNT, IMAGE_EAGER_COUNT_DEFAULT).toString());
+        writeThreads = Integer.parseInt(document
+                .getAttribute(WRITE_THREADS, WRITE_THREADS_DEFAULT).toString());
+        if(writeThreads <= 0) {
+            writeThreads = Runtime.getRuntime().availableProcessors();
+        }
+        skipUnchanged = Boolean.parseBoolean(document.getAttribute(SKIP_UNCHANGED, "false").toString());
+        precompress = readPrecompress(document, logger);
+        precompressLevel = Integer.parseInt(document
+                .getAttribute(PRECOMPRESS_LEVEL, Deflater.DEFAULT_COMPRESSION).toString());
+        if(precompressLevel < Deflater.DEFAULT_COMPRESSION || precompressLevel > Deflater.BEST_COMPRESSION) {
+            logger.warn("Invalid compression level " + precompressLevel + ". Using a default level.");
+            precompressLevel = Deflater.DEFAULT_COMPRESSION;
+        }
+        String report = document.getAttribute(REPORT, "").toString();
+        if("true".equals(report)) {
+            reportFile = BuildReport.DEFAULT_FILE_NAME;
+        } else if(!report.isEmpty() && !"false".equals(report)) {
+            reportFile = report;
+        }
+        String tocData = document.getAttribute(TOC_DATA, "").toString();
+        if("true".equals(tocData)) {
+            tocDataFile = documentName + ".toc.json";
+        } else if(!tocData.isEmpty() && !"false".equals(tocData)) {
+            tocDataFile = tocData.replace(DOCUMENT_PLACEHOLDER, documentName);
+        }
+        anchorRegistry = Boolean.parseBoolean(document.getAttribute(ANCHOR_REGISTRY, "false").toString());
+        searchIndex = Boolean.parseBoolean(document.getAttribute(SEARCH_INDEX, "false").toString());
+        searchIndexTextLength = Integer.parseInt(document.getAttribute(SEARCH_INDEX_TEXT_LENGTH, 0).toString());
+        String processorNames = document.getAttribute(PROCESSORS, "").toString().trim();
+        if(!processorNames.isEmpty()) {
+            processors = new ArrayList<>();
+            for(String name : processorNames.split(",")) {
+                if(!name.trim().isEmpty()) {
+                    processors.add(name.trim());
+                }
+            }
+        }
+    }
+
+    private static boolean readPrecompress(Document document, InternalLogger logger) {
+        String format = document.getAttribute(PRECOMPRESS, "").toString();
+        if(format.isEmpty() || "false".equals(format)) {
+            return false;
+        }
+        if(!"gzip".equals(format)) {
+            logger.warn("Unsupported precompression format '" + format + "', only 'gzip' is supported.");
+            return false;
+        }
+        return true;
+    }
+
+    private static IconMapping readIconMapping(Document document, InternalLogger logger) {
+        String version = document.getAttribute(FONT_AWESOME_VERSION, IconMapping.DEFAULT_VERSION).toString();
+        IconMapping mapping = IconMapping.forVersion(version);
+        if(mapping == null) {
+            logger.warn("Unknown Font Awesome version '" + version + "'. Using version "
+                    + IconMapping.DEFAULT_VERSION + " icons.");
+            mapping = IconMapping.forVersion(IconMapping.DEFAULT_VERSION);
+        }
+
+        String mappingFile = document.getAttribute(FONT_AWESOME_MAPPING, "").toString();
+        if(mappingFile.isEmpty()) {
+            return mapping;
+        }
+        String mappingContent = AssetCache.read(document, mappingFile);
+        if(mappingContent == null) {
+            logger.warn("Font Awesome mapping file '" + mappingFile + "' not found. Using a default mapping.");
+            return mapping;
+        }
+        Properties overrides = new Properties();
+        try {
+            overrides.load(new StringReader(mappingContent));
+        } catch (IOException | IllegalArgumentException ex) {
+            logger.warn("Unable to read Font Awesome mapping file '" + mappingFile + "': " + ex.getMessage()
+                    + ". Using a default mapping.");
+            return mapping;
+        }
+        return mapping.withOverrides(overrides);
+    }
+
+    /**
+     * @return value of the document attribute or the default value if it's not set
+     */
+    String attribute(String name, String defaultValue) {
+        Object value = attributes.get(name);
+        return value != null ? value.toString() : defaultValue;
+    }
+
+    /**
+     * @return names of the processors to run, null or empty to run the default chain
+     */
+    List<String> processors() {
+        return processors;
+    }
+
+    /**
+     * @return name of the JSON ToC file relative to the destination directory, or null if it is disabled
+     */
+    String tocDataFile() {
+        return tocDataFile;
+    }
+
+    boolean anchorRegistry() {
+        return anchorRegistry;
+    }
+
+    boolean searchIndex() {
+        return searchIndex;
+    }
+
+    int searchIndexTextLength() {
+        return searchIndexTextLength;
     }
 
     String documentName() {
@@ -104,11 +300,82 @@ class DocInfo {
         return multipageRef;
     }
 
+    boolean multipageStreaming() {
+        return multipageStreaming;
+    }
+
+    boolean multipageIncremental() {
+        return multipageIncremental;
+    }
+
+    boolean multipageParallel() {
+        return multipageParallel;
+    }
+
+    /**
+     * @return true if multipage document should be split without building a DOM of the whole document
+     */
+    boolean multipageStreamEngine() {
+        return multipageStreamEngine;
+    }
+
     boolean convertToFa() {
         return convertToFa;
     }
 
+    IconMapping iconMapping() {
+        return iconMapping;
+    }
+
     public boolean keepPreamble() {
         return keepPreamble;
     }
+
+    boolean assetFingerprint() {
+        return assetFingerprint;
+    }
+
+    boolean imageAttributes() {
+        return imageAttributes;
+    }
+
+    /**
+     * @return number of the first images in the document that are loaded eagerly
+     */
+    int eagerImages() {
+        return eagerImages;
+    }
+
+    /**
+     * @return directory of the document source file, or an empty string if it's unknown
+     */
+    String sourceDir() {
+        return sourceDir;
+    }
+
+    int writeThreads() {
+        return writeThreads;
+    }
+
+    boolean skipUnchanged() {
+        return skipUnchanged;
+    }
+
+    /**
+     * @return true if a gzip compressed sibling should be written for each generated file
+     */
+    boolean precompress() {
+        return precompress;
+    }
+
+    int precompressLevel() {
+        return precompressLevel;
+    }
+
+    /**
+     * @return name of the build report file relative to the destination directory, or null if report is disabled
+     */
+    String reportFile() {
+        return reportFile;
+    }
 }
@@ -0,0 +1,124 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.tools.asciidoctorj;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+
+/**
+ * Content of the document shared by all the processors in the chain.
+ * <p>
+ * Content is kept either as an HTML string or as a parsed Jsoup DOM, and is converted between these representations
+ * only when a processor asks for the other one. This way consecutive DOM-based processors share a single parsed
+ * document, and it is serialized back only once.
+ * <p>
+ * HTML could be spliced with {@link #remove(int, int)} and {@link #prepend(CharSequence)} without copying it,
+ * it is copied to a single String only when a processor asks for it.
+ */
+public class DocumentContent {
+
+    // either a String or a SegmentedContent
+    private CharSequence html;
+    private Document dom;
+    // length of the HTML the current DOM was parsed from
+    private int parsedLength;
+
+    DocumentContent(String html) {
+        this.html = html;
+    }
+
+    /**
+     * @return HTML content, serializing the DOM if it was requested by the previous processors
+     */
+    public String html() {
+        CharSequence chars = chars();
+        if(!(chars instanceof String)) {
+            html = chars.toString();
+        }
+        return (String) html;
+    }
+
+    /**
+     * @return HTML content as is, without copying spliced content to a single String
+     */
+    public CharSequence chars() {
+        if(html == null) {
+            html = dom.body().html();
+            dom = null;
+        }
+        return html;
+    }
+
+    /**
+     * Replace content with the new HTML, any parsed DOM is discarded.
+     * @param html new content
+     */
+    public void html(CharSequence html) {
+        this.html = html;
+        this.dom = null;
+    }
+
+    /**
+     * Remove part of the HTML content from the start (inclusive) to the end (exclusive) index
+     */
+    public void remove(int start, int end) {
+        CharSequence chars = chars();
+        html(new SegmentedContent()
+                .append(chars, 0, start)
+                .append(chars, end, chars.length()));
+    }
+
+    /**
+     * Add HTML to the beginning of the content
+     */
+    public void prepend(CharSequence prefix) {
+        html(new SegmentedContent()
+                .append(prefix)
+                .append(chars()));
+    }
+
+    /**
+     * @return parsed DOM of the content, any changes to it will be visible to the following processors
+     */
+    public Document dom() {
+        if(dom == null) {
+            String source = html();
+            parsedLength = source.length();
+            dom = Jsoup.parseBodyFragment(source);
+            html = null;
+        }
+        return dom;
+    }
+
+    /**
+     * @return length of the HTML content without serializing the DOM. For a parsed DOM it's the length of the HTML
+     * it was parsed from, as the size of the DOM is known only when it's serialized.
+     */
+    int length() {
+        return html != null ? html.length() : parsedLength;
+    }
+
+    /**
+     * @return true if content is currently held as a parsed DOM
+     */
+    public boolean isParsed() {
+        return dom != null;
+    }
+}
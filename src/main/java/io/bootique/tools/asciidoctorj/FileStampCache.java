@@ -0,0 +1,87 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.tools.asciidoctorj;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Cache of the values computed from the files, keyed by the resolved file path.
+ * <p>
+ * Value is computed again if file modification time or size changes, so edits are picked up in a long-running builds.
+ *
+ * @param <V> type of the cached value
+ */
+class FileStampCache<V> {
+
+    private final ConcurrentMap<Path, Entry<V>> entries = new ConcurrentHashMap<>();
+
+    /**
+     * @param file file to get value for
+     * @param loader function to compute value with if there is no value cached for the unchanged file,
+     *               it gets the resolved file path. Null values are not cached.
+     * @return cached or computed value
+     */
+    V get(Path file, Loader<V> loader) throws IOException {
+        Path path = file.toAbsolutePath().normalize();
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        Entry<V> cached = entries.get(path);
+        if(cached != null && cached.isSame(attributes)) {
+            return cached.value;
+        }
+
+        V value = loader.load(path);
+        if(value != null) {
+            entries.put(path, new Entry<>(attributes, value));
+        } else {
+            entries.remove(path);
+        }
+        return value;
+    }
+
+    void clear() {
+        entries.clear();
+    }
+
+    @FunctionalInterface
+    interface Loader<V> {
+        V load(Path path) throws IOException;
+    }
+
+    private static class Entry<V> {
+        final long lastModified;
+        final long size;
+        final V value;
+
+        Entry(BasicFileAttributes attributes, V value) {
+            this.lastModified = attributes.lastModifiedTime().toMillis();
+            this.size = attributes.size();
+            this.value = value;
+        }
+
+        boolean isSame(BasicFileAttributes attributes) {
+            return lastModified == attributes.lastModifiedTime().toMillis() && size == attributes.size();
+        }
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.tools.asciidoctorj;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Multipage header template, compiled once into a sequence of literal and placeholder segments.
+ * <p>
+ * Supported placeholders:
+ * <ul>
+ *     <li>{title}: section title without a chapter number
+ *     <li>{weight}: page weight, incremented by 10 for each page in the document order
+ *     <li>{id}: section id
+ *     <li>{level}: section level, starting with 1
+ *     <li>{parent}: reference to the parent section page, empty for the top level sections
+ *     <li>{prev}: reference to the previous page in the document order, empty for the first page
+ *     <li>{next}: reference to the next page in the document order, empty for the last page
+ * </ul>
+ * Any other text in curly braces is kept as is.
+ */
+class HeaderTemplate {
+
+    enum Placeholder {
+        TITLE("{title}"),
+        WEIGHT("{weight}"),
+        ID("{id}"),
+        LEVEL("{level}"),
+        PARENT("{parent}"),
+        PREV("{prev}"),
+        NEXT("{next}");
+
+        private final String token;
+
+        Placeholder(String token) {
+            this.token = token;
+        }
+    }
+
+    // literal segments are Strings, placeholders are Placeholder values
+    private final Object[] segments;
+
+    private HeaderTemplate(Object[] segments) {
+        this.segments = segments;
+    }
+
+    static HeaderTemplate compile(String template) {
+        List<Object> segments = new ArrayList<>();
+        int literalStart = 0;
+        int idx = template.indexOf('{');
+        while(idx != -1) {
+            Placeholder placeholder = placeholderAt(template, idx);
+            if(placeholder != null) {
+                if(idx > literalStart) {
+                    segments.add(template.substring(literalStart, idx));
+                }
+                segments.add(placeholder);
+                literalStart = idx + placeholder.token.length();
+                idx = template.indexOf('{', literalStart);
+            } else {
+                idx = template.indexOf('{', idx + 1);
+            }
+        }
+        if(literalStart < template.length()) {
+            segments.add(template.substring(literalStart));
+        }
+        return new HeaderTemplate(segments.toArray());
+    }
+
+    private static Placeholder placeholderAt(String template, int idx) {
+        for(Placeholder placeholder : Placeholder.values()) {
+            if(template.startsWith(placeholder.token, idx)) {
+                return placeholder;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Render template, substituting placeholder values literally
+     *
+     * @param out builder to append rendered template to
+     * @param values placeholder values, null is rendered as an empty string
+     */
+    void render(StringBuilder out, Function<Placeholder, String> values) {
+        for(Object segment : segments) {
+            if(segment instanceof Placeholder) {
+                String value = values.apply((Placeholder) segment);
+                if(value != null) {
+                    out.append(value);
+                }
+            } else {
+                out.append((String) segment);
+            }
+        }
+    }
+}
@@ -23,7 +23,9 @@ import org.asciidoctor.Options;
 import org.asciidoctor.ast.Document;
 import org.asciidoctor.extension.Postprocessor;
 
-import java.util.Arrays;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.List;
 import java.util.Map;
 
@@ -38,11 +40,40 @@ import java.util.Map;
  * <ul>
  *     <li>hugo-header: header file name, if not set empty 'front-matter' will be used
  *     <li>hugo-font-awesome-icons: convert icons to a FontAwesome compatible variant (true/false, default is true)
+ *     <li>hugo-font-awesome-version: FontAwesome version to convert icons for (4, 5 or 6, default is 4)
+ *     <li>hugo-font-awesome-mapping: properties file with icon class to FontAwesome classes mapping,
+ *         that extends or overrides the default one
  *     <li>hugo-multipage: split document to a separate pages (true/false, default is false)
  *     <li>hugo-multipage-level: nested section level that will be used for a single page content in a multipage documents (default is 1)
  *     <li>hugo-multipage-header: header file name to add to a multipage documents, index page will always use `hugo-header`,
  *         if not set empty 'front-matter' will be used
  *     <li>hugo-multipage-ref: reference prefix for a multipage navigation
+ *     <li>hugo-multipage-streaming: write section pages as soon as they are rendered instead of keeping them
+ *         in memory until the end of the processing (true/false, default is false)
+ *     <li>hugo-multipage-incremental: keep a manifest of the generated pages in the document folder, write only pages
+ *         changed since the previous build and delete pages of the removed sections (true/false, default is false)
+ *     <li>hugo-toc-data: write ToC as a JSON tree, "true" or a file name that could contain "{document}" placeholder
+ *     <li>hugo-anchor-registry: resolve links to the sections of other multipage documents (true/false, default is false)
+ *     <li>hugo-search-index: write a JSON search index of the multipage document pages (true/false, default is false)
+ *     <li>hugo-search-index-text-length: maximum length of the page text in the search index (default is 0, no limit)
+ *     <li>hugo-multipage-parallel: render section pages using all available cores (true/false, default is false)
+ *     <li>hugo-multipage-engine: "dom" to split a parsed document, or "stream" to scan HTML and parse each section
+ *         separately (default is "dom")
+ *     <li>hugo-asset-fingerprint: copy local images and assets to the content-hashed file names and rewrite references
+ *         to them (true/false, default is false)
+ *     <li>hugo-image-attributes: add lazy loading attributes and intrinsic width and height to the images
+ *         (true/false, default is false)
+ *     <li>hugo-image-eager-count: number of the first images that are not loaded lazily, counted on each page
+ *         of a multipage document (default is 1)
+ *     <li>hugo-write-threads: number of threads used to write generated files (default is 1, 0 to use all available cores)
+ *     <li>hugo-skip-unchanged: keep files with unchanged content untouched and atomically replace changed ones
+ *         (true/false, default is false)
+ *     <li>hugo-processors: comma separated list of the processors to run, in order (default chain is
+ *         "toc,fa-icons,html,assets,multipage,front-matter" with third-party processors added before the "multipage")
+ *     <li>hugo-precompress: write a compressed sibling for each generated file, only "gzip" is supported
+ *     <li>hugo-precompress-level: compression level from 0 to 9 (default is -1, the Deflater default level)
+ *     <li>hugo-report: write per-processor timing and allocation report for all the processed documents
+ *         as a JSON file in the destination directory (true to use "hugo-extension-report.json", or a file name)
  * </ul>
  */
 @SuppressWarnings("unused")
@@ -50,14 +81,6 @@ public class HugoExtension extends Postprocessor {
 
     private final InternalLogger logger;
 
-    private final static List<ContentProcessor> CONTENT_PROCESSORS = Arrays.asList(
-            new ProcessorToC(),
-            new ProcessorFaIcons(),
-            new ProcessorHtmlContent(),
-            new ProcessorMultipage(),
-            new ProcessorFrontMatter()
-    );
-
     /**
      * Default constructor, used by Asciidoctor maven plugin
      */
@@ -92,12 +115,95 @@ public class HugoExtension extends Postprocessor {
                     + "'" + backend + "'");
         }
 
-        ContentWriter contentWriter = new ContentWriter(document, logger);
-        ProcessorContext context = new ProcessorContext(new DocInfo(document, logger), contentWriter, logger);
-        for(ContentProcessor processor : CONTENT_PROCESSORS) {
-            output = processor.process(context, output);
-        }
+        DocInfo docInfo = new DocInfo(document, logger);
+        ContentWriter contentWriter = new ContentWriter(document, docInfo, logger);
+        ProcessorContext context = new ProcessorContext(docInfo, contentWriter, logger);
+        ProcessingReport report = new ProcessingReport(docInfo.documentName());
+        JfrEvents.Event documentEvent = JfrEvents.DOCUMENT.begin();
+        output = process(context, output, report);
         contentWriter.flush();
+        report.finish(contentWriter);
+        documentEvent.commit(docInfo.documentName(), report.allocatedBytes(), report.pages());
+        logger.debug("Processed '" + docInfo.documentName() + "' in " + report.wallTimeNanos() / 1_000_000
+                + " ms, " + report.pages() + " file(s) generated");
+        writeReport(docInfo, contentWriter, report);
         return output;
     }
+
+    private void writeReport(DocInfo docInfo, ContentWriter contentWriter, ProcessingReport report) {
+        if(docInfo.reportFile() == null) {
+            return;
+        }
+        Path reportPath = Paths.get(contentWriter.destinationDir(), docInfo.reportFile());
+        try {
+            BuildReport.forFile(reportPath).add(report);
+        } catch (IOException ex) {
+            logger.warn("Unable to write build report '" + reportPath + "': " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Run all the processors over the content, sharing single parsed DOM between them.
+     *
+     * @param context processor context
+     * @param output content of the document
+     * @return processed content of the document
+     */
+    static String process(ProcessorContext context, String output) {
+        return process(context, output, new ProcessingReport(context.docInfo().documentName()));
+    }
+
+    /**
+     * Run all the processors configured for the document over the content, recording metrics of each of them
+     * to the report and emitting a JFR event per processor. Processors that are not applicable are skipped.
+     */
+    static String process(ProcessorContext context, String output, ProcessingReport report) {
+        return process(context, new DocumentContent(output), report);
+    }
+
+    static String process(ProcessorContext context, DocumentContent content, ProcessingReport report) {
+        return process(context, content, report, ProcessorChain.forDocument(context.docInfo(), context.logger()));
+    }
+
+    /**
+     * Run the chain of processors over the content. If the document is split later in the chain,
+     * {@link PageProcessor}s before the split are deferred to run over each split page instead.
+     */
+    static String process(ProcessorContext context, DocumentContent content, ProcessingReport report,
+                          List<ContentProcessor> chain) {
+        int split = splitIndex(context.docInfo(), chain);
+        for(int i = 0; i < chain.size(); i++) {
+            ContentProcessor processor = chain.get(i);
+            if(!processor.isApplicable(context, content)) {
+                continue;
+            }
+            if(i < split && processor instanceof PageProcessor) {
+                context.deferToPages((PageProcessor) processor);
+                continue;
+            }
+            String processorName = processor.name();
+            JfrEvents.Event event = JfrEvents.PROCESSOR.begin();
+            ProcessingReport.Stage stage = report.start(processorName, content, context.writer());
+            processor.process(context, content);
+            stage.finish();
+            event.commit(report.documentName(), processorName, stage.inputChars, stage.outputChars,
+                    stage.allocatedBytes, stage.pages);
+        }
+        return content.html();
+    }
+
+    /**
+     * @return position of the multipage processor in the chain if it splits the document, or -1 otherwise
+     */
+    private static int splitIndex(DocInfo docInfo, List<ContentProcessor> chain) {
+        if(!docInfo.isMultipage()) {
+            return -1;
+        }
+        for(int i = 0; i < chain.size(); i++) {
+            if(ProcessorMultipage.NAME.equals(chain.get(i).name())) {
+                return i;
+            }
+        }
+        return -1;
+    }
 }
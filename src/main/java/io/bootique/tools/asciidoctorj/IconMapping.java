@@ -0,0 +1,110 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.tools.asciidoctorj;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Mapping of the Asciidoctor admonition icon classes to the Font Awesome classes that replace them.
+ * <p>
+ * There is a predefined mapping for the Font Awesome 4, 5 and 6, it could be extended or overridden by a
+ * properties file with an icon class as a key and space separated replacement classes (including
+ * size modifiers) as a value, e.g. {@code icon-tip = fa-solid fa-lightbulb fa-2x}.
+ */
+class IconMapping {
+
+    static final String DEFAULT_VERSION = "4";
+
+    private static final Map<String, IconMapping> PRESETS = new HashMap<>();
+
+    static {
+        PRESETS.put("4", new IconMapping()
+                .with("icon-tip", "fa-lightbulb-o fa-2x")
+                .with("icon-note", "fa-info-circle fa-2x")
+                .with("icon-important", "fa-exclamation-circle fa-2x")
+                .with("icon-warning", "fa-exclamation-triangle fa-2x")
+                .with("icon-caution", "fa-exclamation-triangle fa-2x"));
+        PRESETS.put("5", new IconMapping()
+                .with("icon-tip", "fas fa-lightbulb fa-2x")
+                .with("icon-note", "fas fa-info-circle fa-2x")
+                .with("icon-important", "fas fa-exclamation-circle fa-2x")
+                .with("icon-warning", "fas fa-exclamation-triangle fa-2x")
+                .with("icon-caution", "fas fa-exclamation-triangle fa-2x"));
+        PRESETS.put("6", new IconMapping()
+                .with("icon-tip", "fa-solid fa-lightbulb fa-2x")
+                .with("icon-note", "fa-solid fa-circle-info fa-2x")
+                .with("icon-important", "fa-solid fa-circle-exclamation fa-2x")
+                .with("icon-warning", "fa-solid fa-triangle-exclamation fa-2x")
+                .with("icon-caution", "fa-solid fa-triangle-exclamation fa-2x"));
+    }
+
+    private final Map<String, String[]> replacements = new HashMap<>();
+
+    private IconMapping() {
+    }
+
+    /**
+     * @param version Font Awesome major version
+     * @return predefined mapping for the version or null if there is no such version
+     */
+    static IconMapping forVersion(String version) {
+        return PRESETS.get(version);
+    }
+
+    /**
+     * @return copy of this mapping with entries from the properties added, empty value removes an icon from the mapping
+     */
+    IconMapping withOverrides(Properties overrides) {
+        IconMapping mapping = new IconMapping();
+        mapping.replacements.putAll(replacements);
+        overrides.stringPropertyNames().forEach(icon -> {
+            String classes = overrides.getProperty(icon).trim();
+            if(classes.isEmpty()) {
+                mapping.replacements.remove(icon);
+            } else {
+                mapping.with(icon, classes);
+            }
+        });
+        return mapping;
+    }
+
+    /**
+     * @return classes to replace the icon class with, or null if class is not an icon
+     */
+    String[] replacement(String iconClass) {
+        return replacements.get(iconClass);
+    }
+
+    Map<String, String[]> replacements() {
+        return Collections.unmodifiableMap(replacements);
+    }
+
+    boolean isEmpty() {
+        return replacements.isEmpty();
+    }
+
+    private IconMapping with(String icon, String classes) {
+        replacements.put(icon, classes.trim().split("\\s+"));
+        return this;
+    }
+}
@@ -0,0 +1,292 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.tools.asciidoctorj;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Intrinsic size of the PNG, JPEG, GIF and SVG images, read from the image header without decoding the image.
+ * <p>
+ * Sizes are cached JVM-wide, so each image is read only once per build.
+ */
+class ImageSize {
+
+    static final ImageSize UNKNOWN = new ImageSize(0, 0);
+
+    // SVG root element should be at the start of the file, after an optional XML declaration and comments
+    private static final int SVG_HEADER_LENGTH = 4096;
+    private static final Pattern SVG_TAG = Pattern.compile("<svg\\b[^>]*>", Pattern.CASE_INSENSITIVE);
+    private static final Pattern SVG_LENGTH = Pattern.compile("^\\s*([0-9]*\\.?[0-9]+)\\s*(px)?\\s*$");
+
+    private static final int EXIF_ORIENTATION_TAG = 0x0112;
+    private static final int EXIF_ORIENTATION_NORMAL = 1;
+    // orientations from this one up to 8 rotate an image by 90 degrees
+    private static final int EXIF_ORIENTATION_TRANSPOSE = 5;
+
+    private static final FileStampCache<ImageSize> CACHE = new FileStampCache<>();
+
+    final int width;
+    final int height;
+
+    ImageSize(int width, int height) {
+        this.width = width;
+        this.height = height;
+    }
+
+    boolean isKnown() {
+        return width > 0 && height > 0;
+    }
+
+    /**
+     * @param file image file
+     * @return size of the image, or {@link #UNKNOWN} if it's not a supported image or its header can't be read
+     */
+    static ImageSize of(Path file) throws IOException {
+        return CACHE.get(file, path -> {
+            try(InputStream in = new BufferedInputStream(Files.newInputStream(path))) {
+                return read(in, path.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".svg"));
+            } catch (EOFException ex) {
+                return UNKNOWN;
+            }
+        });
+    }
+
+    static void clear() {
+        CACHE.clear();
+    }
+
+    static ImageSize read(InputStream in, boolean svg) throws IOException {
+        if(svg) {
+            return readSvg(in);
+        }
+        DataInputStream data = new DataInputStream(in);
+        int b0 = data.readUnsignedByte();
+        int b1 = data.readUnsignedByte();
+        if(b0 == 0x89 && b1 == 'P') {
+            return readPng(data);
+        }
+        if(b0 == 0xFF && b1 == 0xD8) {
+            return readJpeg(data);
+        }
+        if(b0 == 'G' && b1 == 'I') {
+            return readGif(data);
+        }
+        return UNKNOWN;
+    }
+
+    /**
+     * PNG: 8 bytes signature, then IHDR chunk with the 4-byte big-endian width and height
+     */
+    private static ImageSize readPng(DataInputStream data) throws IOException {
+        byte[] header = new byte[22];
+        data.readFully(header);
+        if(header[0] != 'N' || header[1] != 'G' || header[10] != 'I' || header[11] != 'H'
+                || header[12] != 'D' || header[13] != 'R') {
+            return UNKNOWN;
+        }
+        return new ImageSize(bigEndianInt(header, 14), bigEndianInt(header, 18));
+    }
+
+    /**
+     * GIF: 6 bytes signature, then 2-byte little-endian width and height of the logical screen
+     */
+    private static ImageSize readGif(DataInputStream data) throws IOException {
+        byte[] header = new byte[8];
+        data.readFully(header);
+        if(header[0] != 'F' || header[1] != '8') {
+            return UNKNOWN;
+        }
+        return new ImageSize((header[4] & 0xff) | (header[5] & 0xff) << 8, (header[6] & 0xff) | (header[7] & 0xff) << 8);
+    }
+
+    /**
+     * JPEG: segments are skipped until the start of frame segment with 2-byte big-endian height and width.
+     * Browsers display images rotated according to the EXIF orientation, so width and height are swapped
+     * for the orientations that rotate an image by 90 degrees.
+     */
+    private static ImageSize readJpeg(DataInputStream data) throws IOException {
+        int orientation = EXIF_ORIENTATION_NORMAL;
+        while(true) {
+            int marker = data.readUnsignedByte();
+            if(marker != 0xFF) {
+                return UNKNOWN;
+            }
+            int type = data.readUnsignedByte();
+            while(type == 0xFF) {
+                // fill bytes
+                type = data.readUnsignedByte();
+            }
+            if(type == 0xD8 || type >= 0xD0 && type <= 0xD7 || type == 0x01) {
+                // markers without a segment
+                continue;
+            }
+            if(type == 0xD9 || type == 0xDA) {
+                // end of image or start of scan, no frame header found
+                return UNKNOWN;
+            }
+            int length = data.readUnsignedShort();
+            if(length < 2) {
+                return UNKNOWN;
+            }
+            if(type == 0xE1 && orientation == EXIF_ORIENTATION_NORMAL) {
+                // APP1 segment, could contain EXIF metadata
+                byte[] segment = new byte[length - 2];
+                data.readFully(segment);
+                orientation = exifOrientation(segment);
+                continue;
+            }
+            boolean startOfFrame = type >= 0xC0 && type <= 0xCF && type != 0xC4 && type != 0xC8 && type != 0xCC;
+            if(startOfFrame) {
+                data.readUnsignedByte(); // precision
+                int height = data.readUnsignedShort();
+                int width = data.readUnsignedShort();
+                return orientation >= EXIF_ORIENTATION_TRANSPOSE
+                        ? new ImageSize(height, width)
+                        : new ImageSize(width, height);
+            }
+            skipFully(data, length - 2);
+        }
+    }
+
+    /**
+     * EXIF: "Exif" header, then a TIFF structure with a byte order mark, and the first directory with 12-byte entries
+     * of a 2-byte tag, 2-byte type, 4-byte count and 4-byte value, orientation value is a 2-byte short
+     *
+     * @return EXIF orientation from 1 to 8, or 1 if it's not set
+     */
+    private static int exifOrientation(byte[] segment) {
+        int tiff = 6;
+        if(segment.length < tiff + 8 || segment[0] != 'E' || segment[1] != 'x' || segment[2] != 'i' || segment[3] != 'f'
+                || segment[4] != 0 || segment[5] != 0) {
+            return EXIF_ORIENTATION_NORMAL;
+        }
+        boolean littleEndian = segment[tiff] == 'I' && segment[tiff + 1] == 'I';
+        if(!littleEndian && (segment[tiff] != 'M' || segment[tiff + 1] != 'M')) {
+            return EXIF_ORIENTATION_NORMAL;
+        }
+        long directory = tiff + exifNumber(segment, tiff + 4, 4, littleEndian);
+        if(directory + 2 > segment.length) {
+            return EXIF_ORIENTATION_NORMAL;
+        }
+        int entries = (int) exifNumber(segment, (int) directory, 2, littleEndian);
+        for(int i = 0; i < entries; i++) {
+            int entry = (int) directory + 2 + i * 12;
+            if(entry + 12 > segment.length) {
+                break;
+            }
+            if(exifNumber(segment, entry, 2, littleEndian) == EXIF_ORIENTATION_TAG) {
+                int orientation = (int) exifNumber(segment, entry + 8, 2, littleEndian);
+                return orientation > EXIF_ORIENTATION_NORMAL && orientation <= 8 ? orientation : EXIF_ORIENTATION_NORMAL;
+            }
+        }
+        return EXIF_ORIENTATION_NORMAL;
+    }
+
+    private static long exifNumber(byte[] bytes, int offset, int length, boolean littleEndian) {
+        long value = 0;
+        for(int i = 0; i < length; i++) {
+            int b = bytes[littleEndian ? offset + length - 1 - i : offset + i] & 0xff;
+            value = value << 8 | b;
+        }
+        return value;
+    }
+
+    /**
+     * SVG: width and height of the root element in pixels or unitless, or the size of its view box
+     */
+    private static ImageSize readSvg(InputStream in) throws IOException {
+        byte[] buffer = new byte[SVG_HEADER_LENGTH];
+        int length = 0;
+        int read;
+        while(length < buffer.length && (read = in.read(buffer, length, buffer.length - length)) != -1) {
+            length += read;
+        }
+        Matcher tag = SVG_TAG.matcher(new String(buffer, 0, length, StandardCharsets.UTF_8));
+        if(!tag.find()) {
+            return UNKNOWN;
+        }
+        String svg = tag.group();
+        double width = svgLength(attribute(svg, "width"));
+        double height = svgLength(attribute(svg, "height"));
+        if(width > 0 && height > 0) {
+            return new ImageSize((int) Math.round(width), (int) Math.round(height));
+        }
+        String viewBox = attribute(svg, "viewBox");
+        if(viewBox != null) {
+            String[] parts = viewBox.trim().split("[\\s,]+");
+            if(parts.length == 4) {
+                try {
+                    return new ImageSize((int) Math.round(Double.parseDouble(parts[2])),
+                            (int) Math.round(Double.parseDouble(parts[3])));
+                } catch (NumberFormatException ex) {
+                    return UNKNOWN;
+                }
+            }
+        }
+        return UNKNOWN;
+    }
+
+    private static String attribute(String tag, String name) {
+        Matcher matcher = Pattern.compile("\\s" + name + "\\s*=\\s*(\"([^\"]*)\"|'([^']*)')").matcher(tag);
+        if(!matcher.find()) {
+            return null;
+        }
+        return matcher.group(2) != null ? matcher.group(2) : matcher.group(3);
+    }
+
+    /**
+     * @return length in pixels or 0 if it's not set or uses other units
+     */
+    private static double svgLength(String value) {
+        if(value == null) {
+            return 0;
+        }
+        Matcher matcher = SVG_LENGTH.matcher(value);
+        return matcher.matches() ? Double.parseDouble(matcher.group(1)) : 0;
+    }
+
+    private static int bigEndianInt(byte[] bytes, int offset) {
+        return (bytes[offset] & 0xff) << 24 | (bytes[offset + 1] & 0xff) << 16
+                | (bytes[offset + 2] & 0xff) << 8 | (bytes[offset + 3] & 0xff);
+    }
+
+    private static void skipFully(InputStream in, long count) throws IOException {
+        while(count > 0) {
+            long skipped = in.skip(count);
+            if(skipped <= 0) {
+                if(in.read() == -1) {
+                    throw new EOFException();
+                }
+                skipped = 1;
+            }
+            count -= skipped;
+        }
+    }
+}
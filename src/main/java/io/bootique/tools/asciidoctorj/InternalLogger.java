@@ -35,6 +35,10 @@ class InternalLogger {
         processor.log(new LogRecord(severity, message));
     }
 
+    void debug(String message) {
+        log(Severity.DEBUG, message);
+    }
+
     void info(String message) {
         log(Severity.INFO, message);
     }
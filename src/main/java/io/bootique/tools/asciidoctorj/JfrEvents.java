@@ -0,0 +1,135 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.tools.asciidoctorj;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Custom JDK Flight Recorder events for the document processing, visible in the profiling sessions under
+ * the "Hugo Extension" category.
+ * <p>
+ * Extension is compiled for Java 8, so events are defined dynamically with the jdk.jfr.EventFactory via reflection.
+ * If JFR is not available in the running JVM, events are silently ignored.
+ */
+class JfrEvents {
+
+    /**
+     * Single processor run, fields: document, processor, inputChars, outputChars, allocatedBytes, pages
+     */
+    static final JfrEvents PROCESSOR = create("io.bootique.tools.asciidoctorj.Processor", "Hugo Processor",
+            new Class<?>[]{String.class, String.class, long.class, long.class, long.class, int.class},
+            new String[]{"document", "processor", "inputChars", "outputChars", "allocatedBytes", "pages"});
+
+    /**
+     * Whole document processing, fields: document, allocatedBytes, pages
+     */
+    static final JfrEvents DOCUMENT = create("io.bootique.tools.asciidoctorj.Document", "Hugo Document",
+            new Class<?>[]{String.class, long.class, int.class},
+            new String[]{"document", "allocatedBytes", "pages"});
+
+    private static final Event NO_OP_EVENT = values -> {};
+
+    private final Object factory;
+    private final Method newEvent;
+    private final Method begin;
+    private final Method isEnabled;
+    private final Method set;
+    private final Method commit;
+
+    private JfrEvents(Object factory, Method newEvent, Method begin, Method isEnabled, Method set, Method commit) {
+        this.factory = factory;
+        this.newEvent = newEvent;
+        this.begin = begin;
+        this.isEnabled = isEnabled;
+        this.set = set;
+        this.commit = commit;
+    }
+
+    /**
+     * Begin new event, it should be committed with all the field values when the measured work is done
+     */
+    Event begin() {
+        if(factory == null) {
+            return NO_OP_EVENT;
+        }
+        try {
+            Object event = newEvent.invoke(factory);
+            if(!(Boolean) isEnabled.invoke(event)) {
+                return NO_OP_EVENT;
+            }
+            begin.invoke(event);
+            return values -> {
+                try {
+                    for(int i = 0; i < values.length; i++) {
+                        set.invoke(event, i, values[i]);
+                    }
+                    commit.invoke(event);
+                } catch (ReflectiveOperationException ignored) {
+                    // should not happen once event is created, and events are not critical anyway
+                }
+            };
+        } catch (ReflectiveOperationException ex) {
+            return NO_OP_EVENT;
+        }
+    }
+
+    private static JfrEvents create(String name, String label, Class<?>[] types, String[] fields) {
+        try {
+            Class<?> annotationElementClass = Class.forName("jdk.jfr.AnnotationElement");
+            Class<?> valueDescriptorClass = Class.forName("jdk.jfr.ValueDescriptor");
+            Class<?> eventFactoryClass = Class.forName("jdk.jfr.EventFactory");
+            Class<?> eventClass = Class.forName("jdk.jfr.Event");
+
+            Constructor<?> annotationElement = annotationElementClass.getConstructor(Class.class, Object.class);
+            List<Object> annotations = Arrays.asList(
+                    annotationElement.newInstance(Class.forName("jdk.jfr.Name"), name),
+                    annotationElement.newInstance(Class.forName("jdk.jfr.Label"), label),
+                    annotationElement.newInstance(Class.forName("jdk.jfr.Category"), new String[]{"Hugo Extension"})
+            );
+
+            Constructor<?> valueDescriptor = valueDescriptorClass.getConstructor(Class.class, String.class);
+            List<Object> descriptors = new ArrayList<>(types.length);
+            for(int i = 0; i < types.length; i++) {
+                descriptors.add(valueDescriptor.newInstance(types[i], fields[i]));
+            }
+
+            Object factory = eventFactoryClass.getMethod("create", List.class, List.class)
+                    .invoke(null, annotations, descriptors);
+            return new JfrEvents(factory,
+                    eventFactoryClass.getMethod("newEvent"),
+                    eventClass.getMethod("begin"),
+                    eventClass.getMethod("isEnabled"),
+                    eventClass.getMethod("set", int.class, Object.class),
+                    eventClass.getMethod("commit"));
+        } catch (ReflectiveOperationException | RuntimeException | LinkageError ex) {
+            // no JFR in this JVM
+            return new JfrEvents(null, null, null, null, null, null);
+        }
+    }
+
+    @FunctionalInterface
+    interface Event {
+        void commit(Object... values);
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.tools.asciidoctorj;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Minimal JSON writer for the generated reports and data files.
+ * <p>
+ * Output is pretty printed with a stable layout by default, so generated files could be compared between builds,
+ * or written without any whitespace for the files loaded by the browser.
+ */
+class JsonWriter {
+
+    private final StringBuilder out;
+    private final boolean pretty;
+    // for each open object or array: true if it has no elements yet
+    private final Deque<Boolean> scopes = new ArrayDeque<>();
+    private boolean afterName;
+
+    JsonWriter(StringBuilder out) {
+        this(out, true);
+    }
+
+    JsonWriter(StringBuilder out, boolean pretty) {
+        this.out = out;
+        this.pretty = pretty;
+    }
+
+    JsonWriter beginObject() {
+        beforeValue();
+        out.append('{');
+        scopes.push(Boolean.TRUE);
+        return this;
+    }
+
+    JsonWriter endObject() {
+        return end('}');
+    }
+
+    JsonWriter beginArray() {
+        beforeValue();
+        out.append('[');
+        scopes.push(Boolean.TRUE);
+        return this;
+    }
+
+    JsonWriter endArray() {
+        return end(']');
+    }
+
+    JsonWriter name(String name) {
+        beforeValue();
+        string(name);
+        out.append(pretty ? ": " : ":");
+        afterName = true;
+        return this;
+    }
+
+    JsonWriter value(String value) {
+        beforeValue();
+        if(value == null) {
+            out.append("null");
+        } else {
+            string(value);
+        }
+        return this;
+    }
+
+    JsonWriter value(long value) {
+        beforeValue();
+        out.append(value);
+        return this;
+    }
+
+    JsonWriter value(boolean value) {
+        beforeValue();
+        out.append(value);
+        return this;
+    }
+
+    JsonWriter property(String name, String value) {
+        return name(name).value(value);
+    }
+
+    JsonWriter property(String name, long value) {
+        return name(name).value(value);
+    }
+
+    private JsonWriter end(char bracket) {
+        boolean empty = scopes.pop();
+        if(!empty) {
+            newLine();
+        }
+        out.append(bracket);
+        return this;
+    }
+
+    private void beforeValue() {
+        if(afterName) {
+            afterName = false;
+            return;
+        }
+        if(!scopes.isEmpty()) {
+            if(!scopes.pop()) {
+                out.append(',');
+            }
+            scopes.push(Boolean.FALSE);
+            newLine();
+        }
+    }
+
+    private void newLine() {
+        if(pretty) {
+            out.append('\n');
+            for(int i = 0; i < scopes.size(); i++) {
+                out.append("  ");
+            }
+        }
+    }
+
+    private void string(String value) {
+        out.append('"');
+        for(int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    out.append("\\\"");
+                    break;
+                case '\\':
+                    out.append("\\\\");
+                    break;
+                case '\n':
+                    out.append("\\n");
+                    break;
+                case '\r':
+                    out.append("\\r");
+                    break;
+                case '\t':
+                    out.append("\\t");
+                    break;
+                default:
+                    if(c < 0x20 || c == '\u2028' || c == '\u2029') {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+            }
+        }
+        out.append('"');
+    }
+}
@@ -0,0 +1,612 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.tools.asciidoctorj;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Splits a single document to a separate pages.
+ * <p>
+ * Holds all the state of the split, so a new instance should be used for every document.
+ */
+class MultipageSplitter {
+
+    // rendered pages kept in memory per core in a parallel streaming mode
+    private static final int PARALLEL_BATCH_PER_CORE = 4;
+
+    private final ProcessorContext context;
+
+    private final HeaderTemplate headerTemplate;
+
+    /**
+     * Element id to the header id of the section page that contains it
+     */
+    private Map<String, String> anchorIndex;
+
+    /**
+     * Scanner of the document HTML if it is split without a DOM, null otherwise
+     */
+    private SectionScanner scanner;
+
+    /**
+     * Build-wide registry of the ids of all documents, null if cross-document links are not resolved
+     */
+    private final AnchorRegistry anchorRegistry;
+    private final Path anchorRegistryFile;
+
+    // "sectN" classes and "hN" header tags by section level
+    private String[] sectionClasses;
+    private String[] headerTags;
+
+    /**
+     * Page name to the section it was generated for, used to detect sections that map to the same page
+     */
+    private final Map<String, Section> pageSections = new HashMap<>();
+
+    /**
+     * Search index text of each page, recorded when the page is rendered, null if there is no search index.
+     * Each lazily rendered page records its own element only, so it could still be rendered in a writer thread.
+     */
+    private String[] pageTexts;
+
+    MultipageSplitter(ProcessorContext context) {
+        this.context = context;
+        this.headerTemplate = HeaderTemplate.compile(context.docInfo().multipageHeader());
+        this.anchorRegistryFile = context.writer().filePath(AnchorRegistry.FILE_NAME, null);
+        this.anchorRegistry = context.docInfo().anchorRegistry()
+                ? AnchorRegistry.forFile(anchorRegistryFile, context.logger())
+                : null;
+    }
+
+    /**
+     * Split the document. With the "stream" engine, the document is scanned without a DOM, and each section
+     * is parsed on its own when its page is rendered. If content is already parsed by the previous processors,
+     * its DOM is used anyway, as both ways produce the same pages.
+     * <p>
+     * Processors deferred until the split run over the content of each page and the preamble of the index page.
+     */
+    void split(DocumentContent content) {
+        List<Section> rootSections;
+        String preamble;
+        if(context.docInfo().multipageStreamEngine() && !content.isParsed()) {
+            scanner = new SectionScanner(content.html(), context.docInfo().multipageLevel(), context.logger());
+            rootSections = scanner.scan();
+            anchorIndex = scanner.anchorIndex();
+            preamble = scanner.preambleHtml();
+        } else {
+            if(context.docInfo().multipageStreamEngine()) {
+                context.logger().warn("Asciidoc multipage processor: document '" + context.docInfo().documentName()
+                        + "' is already parsed by the previous processors, it is split with the \"dom\" engine");
+            }
+            Document jsoupDoc = content.dom();
+            rootSections = indexDocument(jsoupDoc);
+            preamble = jsoupDoc.select("#preamble").outerHtml();
+        }
+        List<Page> pages = new ArrayList<>();
+        collectPages(rootSections, null, 1, pages);
+        if(scanner == null && !context.pageProcessors().isEmpty()) {
+            // sections share a single DOM, so they are processed before any page is rendered
+            pages.forEach(page -> {
+                if(page.section.subsections().isEmpty()) {
+                    processPage(page.section.element());
+                }
+            });
+        }
+        preamble = processPreamble(preamble);
+        if(anchorRegistry != null) {
+            registerAnchors();
+        }
+
+        if(context.docInfo().searchIndex()) {
+            pageTexts = new String[pages.size()];
+        }
+        buildContentPages(pages);
+        if(pageTexts != null) {
+            buildSearchIndex(pages);
+        }
+        buildTocPage(rootSections);
+        content.html(buildIndexPage(preamble, rootSections));
+    }
+
+    private CharSequence buildIndexPage(String preamble, List<Section> sections) {
+        StringBuilder sb = new StringBuilder("\n");
+        sectionListHtml(sections, sb);
+        return new SegmentedContent()
+                .append(preamble)
+                .append(sb);
+    }
+
+    private void buildTocPage(List<Section> indexSections) {
+        String fileName = context.docInfo().documentName() + ".toc.html";
+        String existingToC = context.writer().getContent(fileName, null);
+        if(existingToC == null) {
+            StringBuilder sb = new StringBuilder("<div id=\"toc\" class=\"toc toc-side\">");
+            buildTocLevel(sb, indexSections, 1);
+            sb.append("</div>");
+            context.writer().addContent(fileName, sb.toString());
+            String tocDataFile = context.docInfo().tocDataFile();
+            if(tocDataFile != null) {
+                context.writer().replaceContent(tocDataFile, null, TocData
+                        .fromSections(context.docInfo().documentName(), indexSections, this::ref).toJson());
+            }
+        } else {
+            Document existingToCDoc = Jsoup.parseBodyFragment(existingToC);
+            Element firstChild = existingToCDoc.body().firstElementChild();
+            if(firstChild == null) {
+                context.logger().warn("Empty ToC content");
+                return;
+            }
+            fixAnchors(firstChild, true);
+            context.writer().replaceContent(fileName, null, firstChild.outerHtml());
+            String tocDataFile = context.docInfo().tocDataFile();
+            if(tocDataFile != null) {
+                context.writer().replaceContent(tocDataFile, null, TocData
+                        .fromHtml(context.docInfo().documentName(), firstChild).toJson());
+            }
+        }
+    }
+
+    /**
+     * Render pages for all the sections. In a streaming mode each page is written right away,
+     * so only one rendered page is kept in memory at a time.
+     * <p>
+     * In a parallel mode anchors of all the sections are fixed first, as it is the only change of the DOM,
+     * and then pages are rendered on a fork-join pool and written in the document order. When streaming,
+     * pages are rendered in batches, so only a batch of rendered pages is kept in memory.
+     * <p>
+     * In an incremental mode pages that are unchanged since the previous build are not written,
+     * and pages of the removed sections are deleted.
+     * <p>
+     * Otherwise, pages are rendered only when they are written by the {@link ContentWriter#flush()}, so only
+     * the DOM and pages being written are in memory. Anchors are fixed right away, as rendering could happen
+     * in the writer threads and it must not change the DOM.
+     */
+    private void buildContentPages(List<Page> pages) {
+        String folder = context.docInfo().documentName();
+        PageManifest manifest = context.docInfo().multipageIncremental()
+                ? PageManifest.load(context.writer().filePath(PageManifest.FILE_NAME, folder), context.logger())
+                : null;
+
+        boolean parallel = context.docInfo().multipageParallel();
+        boolean lazy = !parallel && manifest == null && !context.docInfo().multipageStreaming();
+        if(lazy) {
+            for(int i = 0; i < pages.size(); i++) {
+                int index = i;
+                Page page = pages.get(i);
+                Section s = page.section;
+                checkPageName(s);
+                if(s.subsections().isEmpty() && scanner == null) {
+                    fixAnchors(s.element(), false);
+                }
+                context.writer().replaceContent(s.documentName(), folder, () -> buildContentPage(page, index,
+                        index > 0 ? pages.get(index - 1).section : null,
+                        index < pages.size() - 1 ? pages.get(index + 1).section : null,
+                        false));
+            }
+            return;
+        }
+
+        int batchSize = 1;
+        if(parallel) {
+            pages.forEach(page -> {
+                if(page.section.subsections().isEmpty() && scanner == null) {
+                    fixAnchors(page.section.element(), false);
+                }
+            });
+            batchSize = context.docInfo().multipageStreaming()
+                    ? PARALLEL_BATCH_PER_CORE * Runtime.getRuntime().availableProcessors()
+                    : Math.max(pages.size(), 1);
+        }
+
+        for(int start = 0; start < pages.size(); start += batchSize) {
+            int end = Math.min(pages.size(), start + batchSize);
+            List<CharSequence> contents = renderPages(pages, start, end, parallel);
+            for(int i = start; i < end; i++) {
+                writePage(pages.get(i).section, contents.get(i - start), folder, manifest);
+            }
+        }
+
+        if(manifest != null) {
+            manifest.removedPages().forEach(fileName -> context.writer().deleteContent(fileName, folder));
+            // pages that failed to write must not be recorded, so they are written again by the next build
+            context.writer().replaceContentOnSuccess(PageManifest.FILE_NAME, folder, manifest.content());
+            context.logger().info("Pages of the '" + folder + "' document: " + manifest.summary());
+        }
+    }
+
+    /**
+     * Render pages from the start (inclusive) to the end (exclusive) index, keeping the document order
+     */
+    private List<CharSequence> renderPages(List<Page> pages, int start, int end, boolean parallel) {
+        IntStream indexes = IntStream.range(start, end);
+        if(parallel) {
+            indexes = indexes.parallel();
+        }
+        return indexes.mapToObj(i -> buildContentPage(pages.get(i), i,
+                        i > 0 ? pages.get(i - 1).section : null,
+                        i < pages.size() - 1 ? pages.get(i + 1).section : null,
+                        !parallel))
+                .collect(Collectors.toList());
+    }
+
+    private void checkPageName(Section s) {
+        Section previous = pageSections.put(s.documentName(), s);
+        if(previous != null) {
+            context.logger().warn("Sections '" + previous.title() + "' and '" + s.title()
+                    + "' have the same page name '" + s.documentName() + "', content of the '"
+                    + previous.title() + "' section is replaced.");
+        }
+    }
+
+    private void writePage(Section s, CharSequence content, String folder, PageManifest manifest) {
+        checkPageName(s);
+        if(manifest != null
+                && !manifest.record(s.documentName(), content, context.writer().filePath(s.documentName(), folder))) {
+            return;
+        }
+        if(context.docInfo().multipageStreaming()) {
+            context.writer().writeContent(s.documentName(), folder, content);
+        } else {
+            context.writer().replaceContent(s.documentName(), folder, content);
+        }
+    }
+
+    /**
+     * Write search index of all the pages as a "[document name].search.json" file. Index is built after
+     * all the pages are written, so the text of each page is taken from the DOM it was rendered with.
+     */
+    private void buildSearchIndex(List<Page> pages) {
+        context.writer().replaceContentOnSuccess(context.docInfo().documentName() + ".search.json", null, () -> {
+            SearchIndex index = new SearchIndex(context.docInfo().documentName());
+            Map<Section, List<String>> paths = new IdentityHashMap<>();
+            for(int i = 0; i < pages.size(); i++) {
+                Page page = pages.get(i);
+                Section section = page.section;
+                List<String> path = page.parent != null ? paths.get(page.parent) : Collections.emptyList();
+                if(!section.subsections().isEmpty()) {
+                    List<String> childPath = new ArrayList<>(path);
+                    childPath.add(headerTitle(section.title()));
+                    paths.put(section, childPath);
+                }
+                String text = pageTexts[i];
+                if(text == null) {
+                    // page content was replaced by another section with the same page name, so it wasn't rendered
+                    text = section.subsections().isEmpty() ? pageText(sectionElement(section)) : "";
+                }
+                index.add(section.id(), headerTitle(section.title()), ref(section.id()), path, text);
+            }
+            return index.toJson();
+        });
+    }
+
+    private String pageText(Element element) {
+        return SearchIndex.tokenize(element.text(), context.docInfo().searchIndexTextLength());
+    }
+
+    /**
+     * Flatten section tree into a list of pages in the document order
+     */
+    private static void collectPages(List<Section> sections, Section parent, int level, List<Page> pages) {
+        sections.forEach(s -> {
+            pages.add(new Page(s, parent, level));
+            collectPages(s.subsections(), s, level + 1, pages);
+        });
+    }
+
+    /**
+     * Render section page, this method doesn't change the DOM if anchors are already fixed,
+     * so it could be called concurrently for the different pages. Sections parsed by the scanner
+     * are always fixed, as each of them has its own DOM.
+     */
+    private CharSequence buildContentPage(Page page, int index, Section prev, Section next, boolean fixAnchors) {
+        Section section = page.section;
+        StringBuilder sb = new StringBuilder();
+        headerTemplate.render(sb, placeholder -> {
+            switch (placeholder) {
+                case TITLE:
+                    return headerTitle(section.title());
+                case WEIGHT:
+                    return Integer.toString(10 * (index + 1));
+                case ID:
+                    return section.id();
+                case LEVEL:
+                    return Integer.toString(page.level);
+                case PARENT:
+                    return page.parent != null ? ref(page.parent.id()) : "";
+                case PREV:
+                    return prev != null ? ref(prev.id()) : "";
+                case NEXT:
+                    return next != null ? ref(next.id()) : "";
+                default:
+                    return null;
+            }
+        });
+        if(section.subsections().isEmpty()) {
+            Element element = sectionElement(section);
+            if(scanner != null) {
+                processPage(element);
+            }
+            if(fixAnchors || scanner != null) {
+                fixAnchors(element, false);
+            }
+            if(pageTexts != null) {
+                pageTexts[index] = pageText(element);
+            }
+            // section HTML is not copied to the header buffer
+            return new SegmentedContent()
+                    .append(sb)
+                    .append(element.outerHtml());
+        }
+        sb.append("<div><h2>").append(section.title()).append("</h2>\n");
+        sectionListHtml(section.subsections(), sb);
+        sb.append("</div>\n");
+        return sb;
+    }
+
+    /**
+     * @return DOM element of the section, parsed on its own if the document is split without a DOM
+     */
+    private Element sectionElement(Section section) {
+        return scanner != null ? scanner.sectionElement(section) : section.element();
+    }
+
+    /**
+     * Run the processors deferred until the split over the page content
+     */
+    private void processPage(Element page) {
+        context.pageProcessors().forEach(processor -> processor.processPage(context, page));
+    }
+
+    private String processPreamble(String preamble) {
+        if(preamble.isEmpty() || context.pageProcessors().isEmpty()) {
+            return preamble;
+        }
+        Element body = Jsoup.parseBodyFragment(preamble).body();
+        processPage(body);
+        return body.html();
+    }
+
+    private void buildTocLevel(StringBuilder sb, List<Section> sections, int level) {
+        sb.append("\n<ul class=\"sectlevel").append(level).append(" nav\">\n");
+        sections.forEach(s -> {
+            sb.append("  <li>")
+                    .append("<a href=\"").append(ref(s.id())).append("\"")
+                    .append(" id=\"").append(s.id()).append("\"")
+                    .append(" class=\"nav-link\">").append(s.title()).append("</a>");
+            if(!s.subsections().isEmpty()) {
+                buildTocLevel(sb, s.subsections(), level + 1);
+            }
+            sb.append("</li>\n");
+        });
+        sb.append("</ul>\n");
+    }
+
+    /**
+     * Register ids of all the sections and anchors of this document, and write the updated registry
+     */
+    private void registerAnchors() {
+        Map<String, String> anchors = new HashMap<>();
+        anchorIndex.forEach((id, sectionRoot) -> {
+            if(sectionRoot != null) {
+                anchors.put(id, ref(anchorRef(id, sectionRoot)));
+            }
+        });
+        anchorRegistry.register(context.docInfo().documentName(), anchors);
+        try {
+            anchorRegistry.save(anchorRegistryFile);
+        } catch (IOException ex) {
+            context.logger().warn("Unable to write anchor registry '" + anchorRegistryFile + "': " + ex.getMessage());
+        }
+    }
+
+    private void fixAnchors(Element element, boolean addId) {
+        element.select("a:not(.anchor)").forEach(el -> {
+            String ref = el.attr("href");
+            if (!ref.startsWith("#")) { // we are interested only in cross-docs references
+                if(anchorRegistry != null) {
+                    String url = anchorRegistry.resolve(ref);
+                    if(url != null) {
+                        el.attr("href", url);
+                    } else if(AnchorRegistry.isDocumentLink(ref)) {
+                        context.logger().warn("Asciidoc multipage processor: unresolved link '" + ref
+                                + "', the linked document is not converted yet or has no such id");
+                    }
+                }
+                return;
+            }
+
+            String id = ref.substring(1);
+            String refId = anchorRef(id, anchorIndex.get(id));
+            el.attr("href", ref(refId));
+            if(addId) {
+                el.id(refId);
+            }
+        });
+    }
+
+    /**
+     * @param sectionRoot header id of the section page containing the id, or null if it's unknown
+     * @return reference to the page with the id, relative to the document
+     */
+    private static String anchorRef(String id, String sectionRoot) {
+        String refId = Section.normalizeId(id);
+        if(sectionRoot != null) {
+            String sectionRootId = Section.normalizeId(sectionRoot);
+            if(!refId.equals(sectionRootId)) {
+                refId = sectionRootId + "#" + id;
+            }
+        }
+        return refId;
+    }
+
+    private static String headerTitle(String title) {
+        int chapterNumber = title.indexOf(". ");
+        if(chapterNumber != -1) {
+            return title.substring(chapterNumber + 2);
+        }
+        return title;
+    }
+
+    private void sectionListHtml(List<Section> subsections, StringBuilder sb) {
+        sb.append("<ul>\n");
+        subsections.forEach(s -> {
+            String innerSectionId = s.id();
+            sb.append("<li><a href=\"").append(ref(innerSectionId)).append("\">")
+                    .append(s.title())
+                    .append("</a>\n");
+        });
+        sb.append("</ul>");
+    }
+
+    private String ref(String sectionId) {
+        return context.docInfo().multipageRef() + context.docInfo().documentName() + "/" + sectionId;
+    }
+
+    /**
+     * Build the section tree and index all element ids in a single depth-first pass over the document.
+     * <p>
+     * Sections are recognized by the "sectN" class and the "h(N+1)" header among their children, up to the
+     * multipage level. Each id is mapped to the header of the deepest section containing it,
+     * so anchors could be resolved without searching the document.
+     */
+    private List<Section> indexDocument(Document jsoupDoc) {
+        // top level sections are always split
+        int level = Math.max(context.docInfo().multipageLevel(), 1);
+        sectionClasses = new String[level + 1];
+        headerTags = new String[level + 1];
+        for(int l = 1; l <= level; l++) {
+            sectionClasses[l] = "sect" + l;
+            headerTags[l] = "h" + (l + 1);
+        }
+
+        anchorIndex = new HashMap<>();
+        List<Section> rootSections = new ArrayList<>();
+        indexElement(jsoupDoc, new String[context.docInfo().multipageLevel() + 1], new Section[level + 1], rootSections);
+        return rootSections;
+    }
+
+    /**
+     * @param sectionHeaders header ids of the sections containing the element, by section level
+     * @param sections sections containing the element, by section level, could be missing for a section without
+     *                 a header or without a parent section
+     */
+    private void indexElement(Element element, String[] sectionHeaders, Section[] sections, List<Section> rootSections) {
+        for (Element child : element.children()) {
+            String id = child.id();
+            if (!id.isEmpty() && !anchorIndex.containsKey(id)) {
+                anchorIndex.put(id, deepestSectionHeader(sectionHeaders));
+            }
+
+            String[] childSectionHeaders = sectionHeaders;
+            Section[] childSections = sections;
+            int level = sectionLevel(child);
+            if (level > 0) {
+                Element header = findSectionHeader(child, level);
+                if (header == null) {
+                    context.logger().warn("Asciidoc multipage processor: No header for section " + child.id());
+                } else {
+                    if (level < sectionHeaders.length) {
+                        childSectionHeaders = Arrays.copyOf(sectionHeaders, sectionHeaders.length);
+                        childSectionHeaders[level] = header.id();
+                    }
+
+                    List<Section> siblings = level == 1
+                            ? rootSections
+                            : sections[level - 1] != null ? sections[level - 1].subsections() : null;
+                    if (siblings != null) {
+                        Section section = createSection(child, header, level);
+                        siblings.add(section);
+                        childSections = Arrays.copyOf(sections, sections.length);
+                        childSections[level] = section;
+                    }
+                }
+            }
+            indexElement(child, childSectionHeaders, childSections, rootSections);
+        }
+    }
+
+    private Section createSection(Element element, Element header, int level) {
+        String title = element.child(0).text();
+        if (level < context.docInfo().multipageLevel()) {
+            return new Section(header.id(), title, element, new ArrayList<>());
+        }
+        return new Section(header.id(), title, element);
+    }
+
+    /**
+     * @return level of the section this element starts, or 0 if it's not a section up to the multipage level
+     */
+    private int sectionLevel(Element element) {
+        if (!element.hasAttr("class")) {
+            return 0;
+        }
+        for (int l = 1; l < sectionClasses.length; l++) {
+            if (element.hasClass(sectionClasses[l])) {
+                return l;
+            }
+        }
+        return 0;
+    }
+
+    private static String deepestSectionHeader(String[] sectionHeaders) {
+        for (int l = sectionHeaders.length - 1; l > 0; l--) {
+            if (sectionHeaders[l] != null) {
+                return sectionHeaders[l];
+            }
+        }
+        return null;
+    }
+
+    private Element findSectionHeader(Element target, int l) {
+        String targetTag = headerTags[l];
+        for (Element inner : target.children()) {
+            if (targetTag.equals(inner.normalName())) {
+                return inner;
+            }
+        }
+        return null;
+    }
+
+    private static class Page {
+        final Section section;
+        final Section parent;
+        final int level;
+
+        Page(Section section, Section parent, int level) {
+            this.section = section;
+            this.parent = parent;
+            this.level = level;
+        }
+    }
+}
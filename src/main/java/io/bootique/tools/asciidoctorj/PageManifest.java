@@ -0,0 +1,224 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.tools.asciidoctorj;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Manifest of the pages generated for a multipage document, persisted in the document folder between builds.
+ * <p>
+ * For each page it records content hash and size, so pages that are unchanged since the previous build
+ * are not written again, and pages of the removed sections can be deleted.
+ * <p>
+ * Manifest is a text file with a line per page: {@code <file name> <SHA-256 of the content> <size in bytes>}.
+ */
+class PageManifest {
+
+    static final String FILE_NAME = ".hugo-manifest";
+
+    private static final String FORMAT_LINE = "# hugo multipage manifest v1";
+
+    private final Map<String, PageInfo> previousPages;
+    private final Map<String, PageInfo> pages = new LinkedHashMap<>();
+
+    private int added;
+    private int changed;
+    private int unchanged;
+
+    private PageManifest(Map<String, PageInfo> previousPages) {
+        this.previousPages = previousPages;
+    }
+
+    /**
+     * Load manifest of the previous build, any unreadable manifest is treated as an empty one.
+     *
+     * @param path path of the manifest file
+     * @param logger logger to report unreadable manifest
+     */
+    static PageManifest load(Path path, InternalLogger logger) {
+        Map<String, PageInfo> previousPages = new LinkedHashMap<>();
+        try {
+            List<String> lines = Files.readAllLines(path, StandardCharsets.UTF_8);
+            if(lines.isEmpty() || !FORMAT_LINE.equals(lines.get(0))) {
+                logger.warn("Unknown multipage manifest format in '" + path + "', all pages will be written.");
+            } else {
+                for(String line : lines.subList(1, lines.size())) {
+                    String[] parts = line.split(" ");
+                    if(parts.length == 3) {
+                        previousPages.put(parts[0], new PageInfo(parts[1], Long.parseLong(parts[2])));
+                    }
+                }
+            }
+        } catch (NoSuchFileException ex) {
+            // first build
+        } catch (IOException | NumberFormatException ex) {
+            logger.warn("Unable to read multipage manifest '" + path + "': " + ex.getMessage()
+                    + ", all pages will be written.");
+            previousPages.clear();
+        }
+        return new PageManifest(previousPages);
+    }
+
+    /**
+     * Record generated page.
+     *
+     * @param fileName page file name
+     * @param content page content
+     * @param existingFile path to the page file written by the previous build
+     * @return true if page should be written, false if the existing file has the same content
+     */
+    boolean record(String fileName, CharSequence content, Path existingFile) {
+        PageInfo page = PageInfo.of(content);
+        pages.put(fileName, page);
+
+        PageInfo previous = previousPages.get(fileName);
+        if(previous == null) {
+            added++;
+            return true;
+        }
+        if(previous.equals(page) && hasSize(existingFile, page.size)) {
+            unchanged++;
+            return false;
+        }
+        changed++;
+        return true;
+    }
+
+    /**
+     * @return names of the pages generated by the previous build and not generated by this one
+     */
+    List<String> removedPages() {
+        List<String> removed = new ArrayList<>();
+        previousPages.keySet().forEach(fileName -> {
+            if(!pages.containsKey(fileName)) {
+                removed.add(fileName);
+            }
+        });
+        return removed;
+    }
+
+    String summary() {
+        return added + " added, " + changed + " changed, " + removedPages().size() + " removed, "
+                + unchanged + " unchanged";
+    }
+
+    /**
+     * @return manifest file content for the pages recorded in this build
+     */
+    String content() {
+        StringBuilder sb = new StringBuilder(FORMAT_LINE).append('\n');
+        pages.forEach((fileName, page) -> sb.append(fileName).append(' ')
+                .append(page.hash).append(' ')
+                .append(page.size).append('\n'));
+        return sb.toString();
+    }
+
+    private static boolean hasSize(Path file, long size) {
+        try {
+            return Files.size(file) == size;
+        } catch (IOException ex) {
+            return false;
+        }
+    }
+
+    private static final class PageInfo {
+        private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+        final String hash;
+        final long size;
+
+        PageInfo(String hash, long size) {
+            this.hash = hash;
+            this.size = size;
+        }
+
+        /**
+         * Hash UTF-8 bytes of the content as they are written, without creating a copy of it
+         */
+        static PageInfo of(CharSequence content) {
+            MessageDigest digest;
+            try {
+                digest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException ex) {
+                throw new IllegalStateException(ex);
+            }
+            CountingOutputStream counter = new CountingOutputStream();
+            try (Writer writer = new OutputStreamWriter(new DigestOutputStream(counter, digest), StandardCharsets.UTF_8)) {
+                ContentWriter.writeChars(writer, content);
+            } catch (IOException ex) {
+                // in-memory streams
+                throw new IllegalStateException(ex);
+            }
+
+            byte[] bytes = digest.digest();
+            char[] hex = new char[bytes.length * 2];
+            for(int i = 0; i < bytes.length; i++) {
+                hex[2 * i] = HEX[(bytes[i] >> 4) & 0xf];
+                hex[2 * i + 1] = HEX[bytes[i] & 0xf];
+            }
+            return new PageInfo(new String(hex), counter.count);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if(this == o) {
+                return true;
+            }
+            if(!(o instanceof PageInfo)) {
+                return false;
+            }
+            PageInfo that = (PageInfo) o;
+            return size == that.size && hash.equals(that.hash);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash.hashCode();
+        }
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+        long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
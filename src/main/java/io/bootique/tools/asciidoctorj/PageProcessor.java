@@ -0,0 +1,41 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package io.bootique.tools.asciidoctorj;
+
+import org.jsoup.nodes.Element;
+
+/**
+ * Content processor that could also run over each page of a multipage document on its own.
+ * <p>
+ * When a document is split, such processors are deferred until the split and process each page separately,
+ * so per-page state, like the number of images on the page, starts over on each page, and the "stream" multipage
+ * engine doesn't need to parse the whole document.
+ */
+interface PageProcessor {
+
+    /**
+     * Process content of a single page. Pages are processed concurrently in a parallel multipage mode,
+     * so implementations must not keep any state between the calls.
+     *
+     * @param page root element of the page content, the processor could change it and any of its descendants
+     */
+    void processPage(ProcessorContext context, Element page);
+}
@@ -0,0 +1,159 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.tools.asciidoctorj;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Metrics collected while processing a single document: wall time, content size, allocated memory and
+ * number of generated pages for each processor.
+ * <p>
+ * Content size is measured in chars at the serialization boundaries, so measurement never forces serialization
+ * of the parsed DOM: while content is parsed, its size is the size of the HTML it was parsed from.
+ * <p>
+ * Allocated memory is measured for the processing thread only, if supported by JVM. Allocations of the threads
+ * that write and compress files and render pages in a parallel multipage mode are not included.
+ */
+class ProcessingReport {
+
+    static final long UNKNOWN = -1;
+
+    private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+
+    private final String documentName;
+    private final List<Stage> stages = new ArrayList<>();
+    private final long startTime;
+    private final long startAllocatedBytes;
+    private long wallTimeNanos;
+    private long allocatedBytes;
+    private int pages;
+
+    ProcessingReport(String documentName) {
+        this.documentName = documentName;
+        this.startTime = System.nanoTime();
+        this.startAllocatedBytes = threadAllocatedBytes();
+    }
+
+    /**
+     * Start measuring a single processor
+     */
+    Stage start(String processor, DocumentContent content, ContentWriter writer) {
+        return new Stage(processor, content, writer);
+    }
+
+    /**
+     * Finish measuring the whole document
+     */
+    void finish(ContentWriter writer) {
+        wallTimeNanos = System.nanoTime() - startTime;
+        allocatedBytes = difference(startAllocatedBytes, threadAllocatedBytes());
+        pages = writer.contentCount();
+    }
+
+    String documentName() {
+        return documentName;
+    }
+
+    List<Stage> stages() {
+        return Collections.unmodifiableList(stages);
+    }
+
+    long wallTimeNanos() {
+        return wallTimeNanos;
+    }
+
+    long allocatedBytes() {
+        return allocatedBytes;
+    }
+
+    int pages() {
+        return pages;
+    }
+
+    void writeJson(JsonWriter json) {
+        json.beginObject()
+                .property("name", documentName)
+                .property("wallTimeNanos", wallTimeNanos)
+                .property("allocatedBytes", allocatedBytes)
+                .property("pages", pages)
+                .name("processors").beginArray();
+        for(Stage stage : stages) {
+            json.beginObject()
+                    .property("name", stage.processor)
+                    .property("wallTimeNanos", stage.wallTimeNanos)
+                    .property("inputChars", stage.inputChars)
+                    .property("outputChars", stage.outputChars)
+                    .property("allocatedBytes", stage.allocatedBytes)
+                    .property("pages", stage.pages)
+                    .endObject();
+        }
+        json.endArray().endObject();
+    }
+
+    private static long threadAllocatedBytes() {
+        if(THREAD_MX_BEAN instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) THREAD_MX_BEAN;
+            if(bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled()) {
+                return bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return UNKNOWN;
+    }
+
+    private static long difference(long start, long end) {
+        return start == UNKNOWN || end == UNKNOWN ? UNKNOWN : end - start;
+    }
+
+    class Stage {
+        final String processor;
+        final long inputChars;
+        private final long startTime;
+        private final long startAllocatedBytes;
+        private final int startPages;
+        private final ContentWriter writer;
+        private final DocumentContent content;
+        long wallTimeNanos;
+        long outputChars;
+        long allocatedBytes;
+        int pages;
+
+        private Stage(String processor, DocumentContent content, ContentWriter writer) {
+            this.processor = processor;
+            this.content = content;
+            this.writer = writer;
+            this.inputChars = content.length();
+            this.startPages = writer.contentCount();
+            this.startAllocatedBytes = threadAllocatedBytes();
+            this.startTime = System.nanoTime();
+        }
+
+        void finish() {
+            wallTimeNanos = System.nanoTime() - startTime;
+            allocatedBytes = difference(startAllocatedBytes, threadAllocatedBytes());
+            outputChars = content.length();
+            pages = writer.contentCount() - startPages;
+            stages.add(this);
+        }
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.tools.asciidoctorj;
+
+import org.jsoup.nodes.Element;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Copy local images and other assets referenced by the document to the content-hashed file names
+ * and rewrite references to them, so they could be cached long-term.
+ * <p>
+ * Assets are resolved against the document source directory first and then against the destination directory.
+ * This processor runs before the multipage split, so references are rewritten in all the split pages too.
+ */
+class ProcessorAssets implements ContentProcessor {
+
+    static final String NAME = "assets";
+
+    private static final String[] PAGE_EXTENSIONS = {".html", ".htm", ".adoc"};
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public boolean isApplicable(ProcessorContext context, DocumentContent content) {
+        if(!context.docInfo().assetFingerprint()) {
+            return false;
+        }
+        if(content.isParsed()) {
+            return true;
+        }
+        String html = content.html();
+        return html.contains("<img") || html.contains("href=");
+    }
+
+    @Override
+    public void process(ProcessorContext context, DocumentContent content) {
+        if(!context.docInfo().assetFingerprint()) {
+            return;
+        }
+
+        Path sourceDir = Paths.get(context.docInfo().sourceDir());
+        Path destinationDir = Paths.get(context.writer().destinationDir());
+        // references already processed for this document, null value for the ones that are not rewritten
+        Map<String, String> references = new HashMap<>();
+        for(Element element : content.dom().select("img[src], a[href]")) {
+            String attribute = "img".equals(element.normalName()) ? "src" : "href";
+            String reference = element.attr(attribute);
+            String fingerprinted;
+            if(references.containsKey(reference)) {
+                fingerprinted = references.get(reference);
+            } else {
+                fingerprinted = fingerprint(context, reference, sourceDir, destinationDir);
+                references.put(reference, fingerprinted);
+            }
+            if(fingerprinted != null) {
+                element.attr(attribute, fingerprinted);
+            }
+        }
+    }
+
+    /**
+     * @return reference to the content-hashed copy of the asset, or null if it's not a local asset
+     */
+    private static String fingerprint(ProcessorContext context, String reference, Path sourceDir, Path destinationDir) {
+        int suffixStart = suffixStart(reference);
+        String assetPath = reference.substring(0, suffixStart);
+        try {
+            Path asset = resolveLocalAsset(assetPath, sourceDir, destinationDir);
+            if(asset == null) {
+                return null;
+            }
+
+            // reference keeps its encoding, the copy is named after the decoded file name
+            int nameStart = assetPath.lastIndexOf('/') + 1;
+            String hash = AssetFingerprints.hash(asset);
+            Path target = destinationDir.resolve(decodePath(assetPath))
+                    .resolveSibling(AssetFingerprints.fingerprintedName(asset.getFileName().toString(), hash))
+                    .toAbsolutePath().normalize();
+            if(!target.startsWith(destinationDir.toAbsolutePath().normalize())) {
+                context.logger().warn("Asset '" + reference + "' is outside of the destination directory, "
+                        + "it is not fingerprinted");
+                return null;
+            }
+            // name is content-hashed, so an existing target is already the same file
+            if(!Files.isRegularFile(target)) {
+                Files.createDirectories(target.getParent());
+                ContentWriter.copyAtomically(asset, target);
+            }
+
+            return assetPath.substring(0, nameStart)
+                    + AssetFingerprints.fingerprintedName(assetPath.substring(nameStart), hash)
+                    + reference.substring(suffixStart);
+        } catch (IOException ex) {
+            context.logger().warn("Unable to fingerprint asset '" + reference + "': " + ex.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Resolve local asset against the source directory first and then against the destination directory
+     *
+     * @param assetPath URL-encoded path of the asset without a query or a fragment
+     * @return asset file or null if path is not a local asset or no file found
+     */
+    static Path resolveLocalAsset(String assetPath, Path sourceDir, Path destinationDir) {
+        if(!isLocalAsset(assetPath)) {
+            return null;
+        }
+        String filePath = decodePath(assetPath);
+        try {
+            Path asset = sourceDir.resolve(filePath);
+            if(Files.isRegularFile(asset)) {
+                return asset;
+            }
+            asset = destinationDir.resolve(filePath);
+            return Files.isRegularFile(asset) ? asset : null;
+        } catch (InvalidPathException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * @return path with the percent-encoded characters decoded, or the path itself if it's not a valid URI path
+     */
+    private static String decodePath(String path) {
+        try {
+            String decoded = new URI(path).getPath();
+            return decoded != null ? decoded : path;
+        } catch (URISyntaxException ex) {
+            return path;
+        }
+    }
+
+    /**
+     * @return index of the query or fragment part of the reference, or its length if there is none
+     */
+    static int suffixStart(String reference) {
+        int suffixStart = reference.length();
+        for(char c : new char[]{'?', '#'}) {
+            int index = reference.indexOf(c);
+            if(index != -1 && index < suffixStart) {
+                suffixStart = index;
+            }
+        }
+        return suffixStart;
+    }
+
+    /**
+     * @return true if path is relative, has no URL scheme and is not a page
+     */
+    private static boolean isLocalAsset(String path) {
+        if(path.isEmpty() || path.startsWith("/") || path.startsWith("\\")) {
+            return false;
+        }
+        int scheme = path.indexOf(':');
+        int slash = path.indexOf('/');
+        if(scheme != -1 && (slash == -1 || scheme < slash)) {
+            return false;
+        }
+        String lowerCasePath = path.toLowerCase(Locale.ROOT);
+        for(String extension : PAGE_EXTENSIONS) {
+            if(lowerCasePath.endsWith(extension)) {
+                return false;
+            }
+        }
+        return !lowerCasePath.endsWith("/");
+    }
+}
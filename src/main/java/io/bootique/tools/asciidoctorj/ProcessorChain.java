@@ -0,0 +1,102 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.tools.asciidoctorj;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
+
+/**
+ * Registry of the content processors available to the documents: built-in ones and the ones registered
+ * with the {@link ServiceLoader}.
+ * <p>
+ * Default chain runs built-in processors with the third-party ones added right before the multipage split,
+ * so they see the whole document. In a multipage document {@link PageProcessor}s run over each page after the split,
+ * so third-party processors see the content before them. Chain could be set per document with the "hugo-processors"
+ * attribute.
+ */
+class ProcessorChain {
+
+    // processors are stateless and shared by all the extension instances
+    private static final List<ContentProcessor> BUILT_IN_PROCESSORS = Arrays.asList(
+            new ProcessorToC(),
+            new ProcessorFaIcons(),
+            new ProcessorHtmlContent(),
+            new ProcessorAssets(),
+            new ProcessorMultipage(),
+            new ProcessorFrontMatter()
+    );
+
+    private static final ProcessorChain INSTANCE = new ProcessorChain(ProcessorChain.class.getClassLoader());
+
+    private final Map<String, ContentProcessor> processors = new LinkedHashMap<>();
+    private final List<ContentProcessor> defaultChain;
+
+    /**
+     * @param classLoader class loader to look up third-party processors with
+     */
+    ProcessorChain(ClassLoader classLoader) {
+        BUILT_IN_PROCESSORS.forEach(processor -> processors.put(processor.name(), processor));
+
+        List<ContentProcessor> thirdPartyProcessors = new ArrayList<>();
+        ServiceLoader.load(ContentProcessor.class, classLoader).forEach(processor -> {
+            if(processors.putIfAbsent(processor.name(), processor) == null) {
+                thirdPartyProcessors.add(processor);
+            }
+        });
+
+        List<ContentProcessor> chain = new ArrayList<>(BUILT_IN_PROCESSORS);
+        chain.addAll(chain.indexOf(processors.get(ProcessorMultipage.NAME)), thirdPartyProcessors);
+        defaultChain = Collections.unmodifiableList(chain);
+    }
+
+    /**
+     * @return processors to run for the document, in order
+     */
+    static List<ContentProcessor> forDocument(DocInfo docInfo, InternalLogger logger) {
+        return INSTANCE.chain(docInfo, logger);
+    }
+
+    /**
+     * @return processors of this registry to run for the document, in order
+     */
+    List<ContentProcessor> chain(DocInfo docInfo, InternalLogger logger) {
+        List<String> names = docInfo.processors();
+        if(names == null || names.isEmpty()) {
+            return defaultChain;
+        }
+
+        List<ContentProcessor> chain = new ArrayList<>(names.size());
+        for(String name : names) {
+            ContentProcessor processor = processors.get(name);
+            if(processor == null) {
+                logger.warn("Unknown content processor '" + name + "', available processors are "
+                        + processors.keySet() + ".");
+            } else {
+                chain.add(processor);
+            }
+        }
+        return chain;
+    }
+}
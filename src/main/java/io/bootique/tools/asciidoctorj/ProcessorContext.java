@@ -19,11 +19,20 @@
 
 package io.bootique.tools.asciidoctorj;
 
-class ProcessorContext {
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Context of the single document processing, shared by all the processors in the chain.
+ */
+public class ProcessorContext {
 
     private final DocInfo docInfo;
     private final ContentWriter writer;
     private final InternalLogger logger;
+    // processors deferred until the multipage split, in the chain order
+    private final List<PageProcessor> pageProcessors = new ArrayList<>();
 
     ProcessorContext(DocInfo docInfo, ContentWriter writer, InternalLogger logger) {
         this.docInfo = docInfo;
@@ -42,4 +51,52 @@ class ProcessorContext {
     InternalLogger logger() {
         return logger;
     }
+
+    /**
+     * Run processor over each page of the document after the multipage split instead of the whole document
+     */
+    void deferToPages(PageProcessor processor) {
+        pageProcessors.add(processor);
+    }
+
+    /**
+     * @return processors to run over each page after the multipage split
+     */
+    List<PageProcessor> pageProcessors() {
+        return Collections.unmodifiableList(pageProcessors);
+    }
+
+    /**
+     * @return name of the processed document
+     */
+    public String documentName() {
+        return docInfo.documentName();
+    }
+
+    /**
+     * @param name document attribute name
+     * @param defaultValue value to use if the attribute is not set
+     * @return document attribute value
+     */
+    public String attribute(String name, String defaultValue) {
+        return docInfo.attribute(name, defaultValue);
+    }
+
+    /**
+     * Add a generated file, it is written to the destination directory after the processing.
+     *
+     * @param fileName file name
+     * @param folder folder relative to the destination directory, or null
+     * @param content file content
+     */
+    public void addContent(String fileName, String folder, CharSequence content) {
+        writer.addContent(fileName, folder, content);
+    }
+
+    /**
+     * Log a warning for the processed document
+     */
+    public void warn(String message) {
+        logger.warn(message);
+    }
 }
@@ -19,37 +19,86 @@
 
 package io.bootique.tools.asciidoctorj;
 
-import org.jsoup.Jsoup;
-
-import java.util.HashMap;
-import java.util.Map;
+import org.jsoup.nodes.Element;
+import org.jsoup.select.NodeTraversor;
 
 /**
- * Convert icons to a font-awesome compatible variant
+ * Convert icons to a font-awesome compatible variant.
+ * <p>
+ * All the icons are replaced in a single pass over the document, checking classes of each element against the
+ * {@link IconMapping} configured for the document, so the number of icon types doesn't affect the processing time.
  */
-class ProcessorFaIcons implements ContentProcessor {
+class ProcessorFaIcons implements ContentProcessor, PageProcessor {
+
+    static final String NAME = "fa-icons";
 
-    private static final Map<String, String> ICONS_REPLACEMENT = new HashMap<>();
+    @Override
+    public String name() {
+        return NAME;
+    }
 
-    static {
-        ICONS_REPLACEMENT.put("icon-tip", "fa-lightbulb-o");
-        ICONS_REPLACEMENT.put("icon-note", "fa-info-circle");
-        ICONS_REPLACEMENT.put("icon-important", "fa-exclamation-circle");
-        ICONS_REPLACEMENT.put("icon-warning", "fa-exclamation-triangle");
-        ICONS_REPLACEMENT.put("icon-caution", "fa-exclamation-triangle");
+    @Override
+    public boolean isApplicable(ProcessorContext context, DocumentContent content) {
+        if (!context.docInfo().convertToFa()) {
+            return false;
+        }
+        IconMapping mapping = context.docInfo().iconMapping();
+        return !mapping.isEmpty() && (content.isParsed() || containsIcons(content.html(), mapping));
     }
 
     @Override
-    public String process(ProcessorContext context, String content) {
+    public void process(ProcessorContext context, DocumentContent content) {
         if (!context.docInfo().convertToFa()) {
-            return content;
+            return;
+        }
+        processPage(context, content.dom());
+    }
+
+    @Override
+    public void processPage(ProcessorContext context, Element page) {
+        IconMapping mapping = context.docInfo().iconMapping();
+        NodeTraversor.traverse((node, depth) -> {
+            if (node instanceof Element) {
+                replaceIcons((Element) node, mapping);
+            }
+        }, page);
+    }
+
+    /**
+     * Cheap check to avoid parsing of a document without any icons
+     */
+    private static boolean containsIcons(String html, IconMapping mapping) {
+        for (String icon : mapping.replacements().keySet()) {
+            if (html.contains(icon)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void replaceIcons(Element element, IconMapping mapping) {
+        String classes = element.attributes().getIgnoreCase("class");
+        int length = classes.length();
+        int start = 0;
+        while (start < length) {
+            while (start < length && Character.isWhitespace(classes.charAt(start))) {
+                start++;
+            }
+            int end = start;
+            while (end < length && !Character.isWhitespace(classes.charAt(end))) {
+                end++;
+            }
+            if (end > start) {
+                String iconClass = classes.substring(start, end);
+                String[] replacement = mapping.replacement(iconClass);
+                if (replacement != null) {
+                    element.removeClass(iconClass);
+                    for (String faClass : replacement) {
+                        element.addClass(faClass);
+                    }
+                }
+            }
+            start = end;
         }
-        org.jsoup.nodes.Document jsoupDoc = Jsoup.parseBodyFragment(content);
-        ICONS_REPLACEMENT.forEach((key, value) ->
-                jsoupDoc.select("." + key)
-                        .removeClass(key)
-                        .addClass(value)
-                        .addClass("fa-2x"));
-        return jsoupDoc.body().html();
     }
 }
@@ -23,8 +23,16 @@ package io.bootique.tools.asciidoctorj;
  * Add `front-matter` header to the document
  */
 class ProcessorFrontMatter implements ContentProcessor {
+
+    static final String NAME = "front-matter";
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
     @Override
-    public String process(ProcessorContext context, String content) {
-        return context.docInfo().header() + content;
+    public void process(ProcessorContext context, DocumentContent content) {
+        content.prepend(context.docInfo().header());
     }
 }
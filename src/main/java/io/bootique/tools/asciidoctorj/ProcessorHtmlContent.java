@@ -19,21 +19,123 @@
 
 package io.bootique.tools.asciidoctorj;
 
-import org.jsoup.Jsoup;
+import org.jsoup.nodes.Element;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Add language class to the code blocks, remove the preamble unless it should be kept, and optionally add
+ * lazy loading and intrinsic size attributes to the images
+ */
+class ProcessorHtmlContent implements ContentProcessor, PageProcessor {
+
+    static final String NAME = "html";
 
-class ProcessorHtmlContent implements ContentProcessor {
     @Override
-    public String process(ProcessorContext context, String content) {
-        org.jsoup.nodes.Document jsoupDoc = Jsoup.parseBodyFragment(content);
-        jsoupDoc.select("code").forEach(el -> {
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public boolean isApplicable(ProcessorContext context, DocumentContent content) {
+        if(content.isParsed()) {
+            return true;
+        }
+        String html = content.html();
+        return html.contains("data-lang=") || !context.docInfo().keepPreamble() && html.contains("id=\"preamble\"")
+                || context.docInfo().imageAttributes() && html.contains("<img");
+    }
+
+    @Override
+    public void process(ProcessorContext context, DocumentContent content) {
+        processPage(context, content.dom());
+    }
+
+    @Override
+    public void processPage(ProcessorContext context, Element page) {
+        page.select("code").forEach(el -> {
             String codeClass = el.attr("data-lang");
             if(!codeClass.isEmpty()) {
                 el.addClass(codeClass);
             }
         });
         if(!context.docInfo().keepPreamble()) {
-            jsoupDoc.select("div#preamble").remove();
+            page.select("div#preamble").remove();
+        }
+        if(context.docInfo().imageAttributes()) {
+            addImageAttributes(context, page);
+        }
+    }
+
+    /**
+     * Add "loading" and "decoding" attributes to all images except the first ones that are likely on the first screen,
+     * and fill in missing "width" and "height" with the intrinsic size of the local images.
+     */
+    private static void addImageAttributes(ProcessorContext context, Element page) {
+        Path sourceDir = Paths.get(context.docInfo().sourceDir());
+        Path destinationDir = Paths.get(context.writer().destinationDir());
+        int eagerImages = context.docInfo().eagerImages();
+        int index = 0;
+        for(Element img : page.select("img[src]")) {
+            if(index++ >= eagerImages) {
+                if(!img.hasAttr("loading")) {
+                    img.attr("loading", "lazy");
+                }
+                if(!img.hasAttr("decoding")) {
+                    img.attr("decoding", "async");
+                }
+            }
+
+            boolean hasWidth = img.hasAttr("width");
+            boolean hasHeight = img.hasAttr("height");
+            if(hasWidth && hasHeight) {
+                continue;
+            }
+            String src = img.attr("src");
+            Path image = ProcessorAssets.resolveLocalAsset(src.substring(0, ProcessorAssets.suffixStart(src)),
+                    sourceDir, destinationDir);
+            if(image == null) {
+                continue;
+            }
+            ImageSize size;
+            try {
+                size = ImageSize.of(image);
+            } catch (IOException ex) {
+                context.logger().warn("Unable to read size of the image '" + src + "': " + ex.getMessage());
+                continue;
+            }
+            if(!size.isKnown()) {
+                continue;
+            }
+
+            // keep the aspect ratio if only one dimension is set
+            if(hasWidth) {
+                int width = pixels(img.attr("width"));
+                if(width > 0) {
+                    img.attr("height", Integer.toString(Math.round((float) width * size.height / size.width)));
+                }
+            } else if(hasHeight) {
+                int height = pixels(img.attr("height"));
+                if(height > 0) {
+                    img.attr("width", Integer.toString(Math.round((float) height * size.width / size.height)));
+                }
+            } else {
+                img.attr("width", Integer.toString(size.width));
+                img.attr("height", Integer.toString(size.height));
+            }
+        }
+    }
+
+    /**
+     * @return dimension in pixels, or 0 if it's not a number of pixels (e.g. a percentage)
+     */
+    private static int pixels(String value) {
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException ex) {
+            return 0;
         }
-        return jsoupDoc.body().html();
     }
 }
@@ -26,19 +26,38 @@ import org.jsoup.Jsoup;
  */
 class ProcessorToC implements ContentProcessor {
 
+    static final String NAME = "toc";
+
+    private static final String TOC_START = "<div id=\"toc\" class=\"toc\">";
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    /**
+     * ToC is searched in the raw HTML, so it is applicable to any parsed content
+     */
     @Override
-    public String process(ProcessorContext context, String content) {
-        int start = content.indexOf("<div id=\"toc\" class=\"toc\">");
+    public boolean isApplicable(ProcessorContext context, DocumentContent content) {
+        return content.isParsed() || content.html().contains(TOC_START);
+    }
+
+    @Override
+    public void process(ProcessorContext context, DocumentContent documentContent) {
+        // ToC is extracted from the raw HTML, so only a small fragment is parsed here
+        String content = documentContent.html();
+        int start = content.indexOf(TOC_START);
         if(start == -1) {
             // no toc found, exit
-            return content;
+            return;
         }
 
         String tocEndString = "</ul>\n</div>";
         int end = content.indexOf(tocEndString, start);
         if(end == -1) {
             // bad, no end
-            return content;
+            return;
         }
 
         end += tocEndString.length() + 1;
@@ -51,10 +70,11 @@ class ProcessorToC implements ContentProcessor {
 
         String docname = context.docInfo().documentName();
         context.writer().addContent(docname + ".toc.html", toc);
-
-        if(start == 0) {
-            return content.substring(end);
+        String tocDataFile = context.docInfo().tocDataFile();
+        if(tocDataFile != null) {
+            context.writer().addContent(tocDataFile, TocData.fromHtml(docname, tocDoc.body()).toJson());
         }
-        return content.substring(0, start) + content.substring(end);
+
+        documentContent.remove(start, end);
     }
 }
@@ -0,0 +1,94 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.tools.asciidoctorj;
+
+import java.util.List;
+
+/**
+ * JSON search index of the multipage document pages, built from the section tree that is already in memory.
+ * <p>
+ * Each page entry has section id, title, URL, path of the parent section titles and the page text, split into
+ * lower case words separated by a single space and optionally capped to a maximum length.
+ * Pages are listed in the document order, so the file is the same between builds. The index is loaded
+ * by the browser, so it is written without any whitespace.
+ */
+class SearchIndex {
+
+    private final StringBuilder out = new StringBuilder();
+    private final JsonWriter json = new JsonWriter(out, false);
+
+    SearchIndex(String documentName) {
+        json.beginObject()
+                .property("document", documentName)
+                .name("pages").beginArray();
+    }
+
+    /**
+     * Add page to the index.
+     *
+     * @param path titles of the parent sections, starting from the top level
+     * @param text page text, already {@link #tokenize tokenized}
+     */
+    void add(String id, String title, String url, List<String> path, String text) {
+        json.beginObject()
+                .property("id", id)
+                .property("title", title)
+                .property("url", url)
+                .name("path").beginArray();
+        path.forEach(json::value);
+        json.endArray()
+                .property("text", text)
+                .endObject();
+    }
+
+    String toJson() {
+        json.endArray().endObject();
+        return out.append('\n').toString();
+    }
+
+    /**
+     * @param maxLength maximum length of the result, no limit if it is not positive
+     * @return lower case words of the text separated by a single space
+     */
+    static String tokenize(String text, int maxLength) {
+        int limit = maxLength > 0 ? maxLength : Integer.MAX_VALUE;
+        StringBuilder sb = new StringBuilder(Math.min(text.length(), limit));
+        int wordStart = -1;
+        for(int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if(wordChar && wordStart == -1) {
+                wordStart = i;
+            } else if(!wordChar && wordStart != -1) {
+                int separator = sb.length() > 0 ? 1 : 0;
+                if(sb.length() + separator + i - wordStart > limit) {
+                    break;
+                }
+                if(separator > 0) {
+                    sb.append(' ');
+                }
+                for(int c = wordStart; c < i; c++) {
+                    sb.append(Character.toLowerCase(text.charAt(c)));
+                }
+                wordStart = -1;
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -19,6 +19,8 @@
 
 package io.bootique.tools.asciidoctorj;
 
+import org.jsoup.nodes.Element;
+
 import java.util.Collections;
 import java.util.List;
 
@@ -26,20 +28,20 @@ class Section implements Comparable<Section> {
 
     private final String sectionId;
     private final String title;
-    private final String content;
+    private final Element element;
     private final List<Section> subsections;
 
-    Section(String sectionId, String title, String content) {
+    Section(String sectionId, String title, Element element) {
         this.sectionId = normalizeId(sectionId);
         this.title = title;
-        this.content = content;
+        this.element = element;
         this.subsections = Collections.emptyList();
     }
 
-    Section(String sectionId, String title, String content, List<Section> subsections) {
+    Section(String sectionId, String title, Element element, List<Section> subsections) {
         this.sectionId = normalizeId(sectionId);
         this.title = title;
-        this.content = content;
+        this.element = element;
         this.subsections = subsections;
     }
 
@@ -47,8 +49,11 @@ class Section implements Comparable<Section> {
         return sectionId;
     }
 
-    String content() {
-        return content;
+    /**
+     * @return DOM element of this section
+     */
+    Element element() {
+        return element;
     }
 
     List<Section> subsections() {
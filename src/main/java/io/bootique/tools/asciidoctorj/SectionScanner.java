@@ -0,0 +1,419 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.tools.asciidoctorj;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Element;
+import org.jsoup.parser.Parser;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Builds the multipage section tree and the id index from the Asciidoctor HTML without parsing it to a DOM.
+ * <p>
+ * HTML is scanned tag by tag, only the nesting of the "div" elements is tracked, as sections are always "div"
+ * elements with a "sectN" class, and Asciidoctor always closes them. Section header is expected to be the first
+ * child of the section. Only the source range of each section is recorded, and it is parsed on its own when
+ * the section page is rendered, so the memory needed is bounded by the largest section rather than by the document.
+ */
+class SectionScanner {
+
+    private static final String[] RAW_TEXT_TAGS = {"script", "style", "textarea", "title"};
+
+    // tags that don't change the text of the header, so it could be extracted without parsing it
+    private static final Set<String> INLINE_TAGS = new HashSet<>(Arrays.asList(
+            "a", "abbr", "b", "code", "em", "i", "kbd", "mark", "s", "small", "span", "strong", "sub", "sup", "u", "var"));
+
+    private final String html;
+    private final int multipageLevel;
+    private final InternalLogger logger;
+
+    // "sectN" classes and "hN" header tags by section level
+    private final String[] sectionClasses;
+    private final String[] headerTags;
+
+    private final Map<String, String> anchorIndex = new HashMap<>();
+    private final Map<Section, int[]> sectionRanges = new IdentityHashMap<>();
+    private int[] preambleRange;
+
+    // current scan position and the attributes of the last start tag
+    private int pos;
+    private String tagName;
+    private String tagId;
+    private String tagClass;
+
+    SectionScanner(String html, int multipageLevel, InternalLogger logger) {
+        this.html = html;
+        this.multipageLevel = multipageLevel;
+        this.logger = logger;
+
+        // top level sections are always split
+        int level = Math.max(multipageLevel, 1);
+        sectionClasses = new String[level + 1];
+        headerTags = new String[level + 1];
+        for(int l = 1; l <= level; l++) {
+            sectionClasses[l] = "sect" + l;
+            headerTags[l] = "h" + (l + 1);
+        }
+    }
+
+    /**
+     * Scan the document, building the section tree and the id index.
+     *
+     * @return top level sections
+     */
+    List<Section> scan() {
+        List<Section> rootSections = new ArrayList<>();
+        Deque<DivScope> divs = new ArrayDeque<>();
+        String[] sectionHeaders = new String[multipageLevel + 1];
+        Section[] sections = new Section[sectionClasses.length];
+        // section "div" waiting for its header
+        DivScope pendingSection = null;
+
+        pos = 0;
+        while(true) {
+            int tagStart = html.indexOf('<', pos);
+            if(tagStart == -1) {
+                break;
+            }
+            pos = tagStart + 1;
+            if(html.startsWith("!--", pos)) {
+                int commentEnd = html.indexOf("-->", pos + 3);
+                pos = commentEnd == -1 ? html.length() : commentEnd + 3;
+                continue;
+            }
+            if(pos < html.length() && (html.charAt(pos) == '!' || html.charAt(pos) == '?')) {
+                skipTo('>');
+                continue;
+            }
+            if(pos < html.length() && html.charAt(pos) == '/') {
+                pos++;
+                String endTag = readName();
+                skipTo('>');
+                if("div".equals(endTag) && !divs.isEmpty()) {
+                    DivScope scope = divs.pop();
+                    if(scope == pendingSection) {
+                        logger.warn("Asciidoc multipage processor: No header for section " + scope.id);
+                        pendingSection = null;
+                    }
+                    if(scope.section != null) {
+                        sectionRanges.put(scope.section, new int[]{scope.start, pos});
+                    }
+                    if(scope.preamble) {
+                        preambleRange = new int[]{scope.start, pos};
+                    }
+                    sectionHeaders = scope.parentHeaders;
+                    sections = scope.parentSections;
+                }
+                continue;
+            }
+            if(pos >= html.length() || !Character.isLetter(html.charAt(pos))) {
+                // not a tag
+                continue;
+            }
+
+            readStartTag();
+
+            if(pendingSection != null) {
+                int level = pendingSection.level;
+                if(headerTags[level].equals(tagName)) {
+                    if(level < sectionHeaders.length) {
+                        sectionHeaders = Arrays.copyOf(sectionHeaders, sectionHeaders.length);
+                        sectionHeaders[level] = tagId;
+                    }
+                    List<Section> siblings = level == 1
+                            ? rootSections
+                            : sections[level - 1] != null ? sections[level - 1].subsections() : null;
+                    if(siblings != null) {
+                        Section section = createSection(tagId, headerTitle(tagStart), level);
+                        siblings.add(section);
+                        sections = Arrays.copyOf(sections, sections.length);
+                        sections[level] = section;
+                        pendingSection.section = section;
+                    }
+                } else {
+                    logger.warn("Asciidoc multipage processor: No header for section " + pendingSection.id);
+                }
+                pendingSection = null;
+            }
+
+            if(!tagId.isEmpty() && !anchorIndex.containsKey(tagId)) {
+                anchorIndex.put(tagId, deepestSectionHeader(sectionHeaders));
+            }
+
+            if("div".equals(tagName)) {
+                DivScope scope = new DivScope(tagStart, tagId, sectionLevel(tagClass), sectionHeaders, sections);
+                scope.preamble = preambleRange == null && "preamble".equals(tagId);
+                divs.push(scope);
+                if(scope.level > 0) {
+                    pendingSection = scope;
+                }
+            } else {
+                skipRawText();
+            }
+        }
+        return rootSections;
+    }
+
+    /**
+     * @return element id to the id of the header of the section page that contains it
+     */
+    Map<String, String> anchorIndex() {
+        return anchorIndex;
+    }
+
+    /**
+     * Parse the section on its own. This method doesn't change any state, so it could be called concurrently.
+     *
+     * @return DOM element of the section
+     */
+    Element sectionElement(Section section) {
+        int[] range = sectionRanges.get(section);
+        return Jsoup.parseBodyFragment(html.substring(range[0], range[1])).body().child(0);
+    }
+
+    /**
+     * @return HTML of the document preamble or an empty string if there is no preamble
+     */
+    String preambleHtml() {
+        if(preambleRange == null) {
+            return "";
+        }
+        return Jsoup.parseBodyFragment(html.substring(preambleRange[0], preambleRange[1])).body().child(0).outerHtml();
+    }
+
+    private Section createSection(String headerId, String title, int level) {
+        if (level < multipageLevel) {
+            return new Section(headerId, title, null, new ArrayList<>());
+        }
+        return new Section(headerId, title, null);
+    }
+
+    /**
+     * @return text of the header starting at the given position, the same as the Jsoup {@link Element#text()}
+     */
+    private String headerTitle(int headerStart) {
+        int contentEnd = html.indexOf("</" + tagName, pos);
+        contentEnd = contentEnd == -1 ? html.length() : contentEnd;
+        String text = inlineText(html, pos, contentEnd);
+        if(text != null) {
+            return text;
+        }
+
+        int headerEnd = html.indexOf('>', contentEnd);
+        headerEnd = headerEnd == -1 ? html.length() : headerEnd + 1;
+        Element body = Jsoup.parseBodyFragment(html.substring(headerStart, headerEnd)).body();
+        return body.childrenSize() > 0 ? body.child(0).text() : "";
+    }
+
+    /**
+     * Get text of the HTML fragment with only inline tags, normalizing whitespaces the same way Jsoup does.
+     *
+     * @return text of the fragment, or null if it has other tags or comments and should be parsed
+     */
+    static String inlineText(String html, int start, int end) {
+        StringBuilder raw = new StringBuilder(end - start);
+        int i = start;
+        while(i < end) {
+            char c = html.charAt(i);
+            if(c == '<' && i + 1 < end && (Character.isLetter(html.charAt(i + 1)) || html.charAt(i + 1) == '/'
+                    || html.charAt(i + 1) == '!')) {
+                int nameStart = html.charAt(i + 1) == '/' ? i + 2 : i + 1;
+                int nameEnd = nameStart;
+                while(nameEnd < end && Character.isLetterOrDigit(html.charAt(nameEnd))) {
+                    nameEnd++;
+                }
+                int tagEnd = html.indexOf('>', nameEnd);
+                if(tagEnd == -1 || tagEnd >= end
+                        || !INLINE_TAGS.contains(html.substring(nameStart, nameEnd).toLowerCase(Locale.ROOT))) {
+                    return null;
+                }
+                i = tagEnd + 1;
+                continue;
+            }
+            raw.append(c);
+            i++;
+        }
+
+        String decoded = raw.indexOf("&") != -1 ? Parser.unescapeEntities(raw.toString(), false) : raw.toString();
+        StringBuilder text = new StringBuilder(decoded.length());
+        boolean lastWasWhite = false;
+        for(int j = 0; j < decoded.length(); j++) {
+            char c = decoded.charAt(j);
+            if(c == ' ' || c == '\t' || c == '\n' || c == '\f' || c == '\r' || c == '\u00a0') {
+                if(!lastWasWhite) {
+                    text.append(' ');
+                    lastWasWhite = true;
+                }
+            } else if(c != '\u200b' && c != '\u00ad') {
+                text.append(c);
+                lastWasWhite = false;
+            }
+        }
+        return text.toString().trim();
+    }
+
+    private int sectionLevel(String classAttribute) {
+        if(classAttribute.isEmpty()) {
+            return 0;
+        }
+        List<String> classes = Arrays.asList(classAttribute.trim().split("\\s+"));
+        for(int l = 1; l < sectionClasses.length; l++) {
+            if(classes.contains(sectionClasses[l])) {
+                return l;
+            }
+        }
+        return 0;
+    }
+
+    private static String deepestSectionHeader(String[] sectionHeaders) {
+        for (int l = sectionHeaders.length - 1; l > 0; l--) {
+            if (sectionHeaders[l] != null) {
+                return sectionHeaders[l];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Read the start tag name and its "id" and "class" attributes, stopping after the tag
+     */
+    private void readStartTag() {
+        tagName = readName();
+        tagId = "";
+        tagClass = "";
+        while(pos < html.length()) {
+            char c = html.charAt(pos);
+            if(c == '>') {
+                pos++;
+                return;
+            }
+            if(Character.isWhitespace(c) || c == '/') {
+                pos++;
+                continue;
+            }
+            String name = readName();
+            if(name.isEmpty()) {
+                pos++;
+                continue;
+            }
+            String value = "";
+            skipWhitespace();
+            if(pos < html.length() && html.charAt(pos) == '=') {
+                pos++;
+                skipWhitespace();
+                value = readAttributeValue();
+            }
+            if("id".equals(name)) {
+                tagId = value;
+            } else if("class".equals(name)) {
+                tagClass = value;
+            }
+        }
+    }
+
+    private String readAttributeValue() {
+        if(pos >= html.length()) {
+            return "";
+        }
+        int start;
+        int end;
+        char quote = html.charAt(pos);
+        if(quote == '"' || quote == '\'') {
+            start = pos + 1;
+            end = html.indexOf(quote, start);
+            end = end == -1 ? html.length() : end;
+            pos = Math.min(end + 1, html.length());
+        } else {
+            start = pos;
+            while(pos < html.length() && !Character.isWhitespace(html.charAt(pos)) && html.charAt(pos) != '>') {
+                pos++;
+            }
+            end = pos;
+        }
+        String value = html.substring(start, end);
+        return value.indexOf('&') != -1 ? Parser.unescapeEntities(value, true) : value;
+    }
+
+    private String readName() {
+        int start = pos;
+        while(pos < html.length()) {
+            char c = html.charAt(pos);
+            if(Character.isWhitespace(c) || c == '>' || c == '/' || c == '=') {
+                break;
+            }
+            pos++;
+        }
+        return html.substring(start, pos).toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Skip content of the elements that can't contain other tags
+     */
+    private void skipRawText() {
+        for(String rawTag : RAW_TEXT_TAGS) {
+            if(rawTag.equals(tagName)) {
+                int end = html.indexOf("</" + rawTag, pos);
+                pos = end == -1 ? html.length() : end;
+                return;
+            }
+        }
+    }
+
+    private void skipWhitespace() {
+        while(pos < html.length() && Character.isWhitespace(html.charAt(pos))) {
+            pos++;
+        }
+    }
+
+    private void skipTo(char c) {
+        int end = html.indexOf(c, pos);
+        pos = end == -1 ? html.length() : end + 1;
+    }
+
+    private static class DivScope {
+        final int start;
+        final String id;
+        final int level;
+        // section headers and sections of the parent, restored when this "div" is closed
+        final String[] parentHeaders;
+        final Section[] parentSections;
+        Section section;
+        boolean preamble;
+
+        DivScope(int start, String id, int level, String[] parentHeaders, Section[] parentSections) {
+            this.start = start;
+            this.id = id;
+            this.level = level;
+            this.parentHeaders = parentHeaders;
+            this.parentSections = parentSections;
+        }
+    }
+}
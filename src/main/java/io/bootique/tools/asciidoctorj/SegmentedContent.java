@@ -0,0 +1,146 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.tools.asciidoctorj;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Content assembled from the segments of other char sequences without copying them.
+ * <p>
+ * Used to splice large documents, e.g. to cut out a ToC or to add a header, so the content is copied only once,
+ * when it is written to a file or converted to a String for Asciidoctor.
+ * Appended sequences should not be changed afterwards.
+ */
+class SegmentedContent implements CharSequence {
+
+    private final List<CharSequence> segments = new ArrayList<>();
+    private final List<int[]> ranges = new ArrayList<>();
+    private int length;
+
+    SegmentedContent append(CharSequence content) {
+        return append(content, 0, content.length());
+    }
+
+    /**
+     * Append a part of the char sequence from the start (inclusive) to the end (exclusive) index
+     */
+    SegmentedContent append(CharSequence content, int start, int end) {
+        if(start < 0 || end > content.length() || start > end) {
+            throw new IndexOutOfBoundsException("start " + start + ", end " + end + ", length " + content.length());
+        }
+        if(start == end) {
+            return this;
+        }
+        if(content instanceof SegmentedContent) {
+            ((SegmentedContent) content).appendTo(this, start, end);
+            return this;
+        }
+        segments.add(content);
+        ranges.add(new int[]{start, end});
+        length += end - start;
+        return this;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if(index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("index " + index + ", length " + length);
+        }
+        for(int i = 0; i < segments.size(); i++) {
+            int[] range = ranges.get(i);
+            int segmentLength = range[1] - range[0];
+            if(index < segmentLength) {
+                return segments.get(i).charAt(range[0] + index);
+            }
+            index -= segmentLength;
+        }
+        throw new IndexOutOfBoundsException();
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return new SegmentedContent().append(this, start, end);
+    }
+
+    /**
+     * Write all the segments without creating an intermediate copy of the content
+     */
+    void writeTo(Writer writer) throws IOException {
+        char[] buffer = null;
+        for(int i = 0; i < segments.size(); i++) {
+            CharSequence segment = segments.get(i);
+            int[] range = ranges.get(i);
+            if(segment instanceof String) {
+                writer.write((String) segment, range[0], range[1] - range[0]);
+                continue;
+            }
+            if(buffer == null) {
+                buffer = new char[8192];
+            }
+            for(int start = range[0]; start < range[1]; start += buffer.length) {
+                int end = Math.min(range[1], start + buffer.length);
+                if(segment instanceof StringBuilder) {
+                    ((StringBuilder) segment).getChars(start, end, buffer, 0);
+                } else {
+                    for(int c = start; c < end; c++) {
+                        buffer[c - start] = segment.charAt(c);
+                    }
+                }
+                writer.write(buffer, 0, end - start);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        if(segments.size() == 1 && segments.get(0) instanceof String) {
+            int[] range = ranges.get(0);
+            return ((String) segments.get(0)).substring(range[0], range[1]);
+        }
+        StringBuilder sb = new StringBuilder(length);
+        for(int i = 0; i < segments.size(); i++) {
+            int[] range = ranges.get(i);
+            sb.append(segments.get(i), range[0], range[1]);
+        }
+        return sb.toString();
+    }
+
+    private void appendTo(SegmentedContent target, int start, int end) {
+        int offset = 0;
+        for(int i = 0; i < segments.size() && offset < end; i++) {
+            int[] range = ranges.get(i);
+            int segmentLength = range[1] - range[0];
+            int from = Math.max(start - offset, 0);
+            int to = Math.min(end - offset, segmentLength);
+            if(from < to) {
+                target.append(segments.get(i), range[0] + from, range[0] + to);
+            }
+            offset += segmentLength;
+        }
+    }
+}
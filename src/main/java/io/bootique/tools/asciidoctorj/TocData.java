@@ -0,0 +1,123 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.tools.asciidoctorj;
+
+import org.jsoup.nodes.Element;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Table of contents as a JSON tree, to be used as a Hugo data file.
+ * <p>
+ * Each entry has section id, title, link, level and a list of child entries, so a theme could render only
+ * the branch relevant to the current page, and Hugo parses the file only once per build.
+ */
+class TocData {
+
+    private final StringBuilder out = new StringBuilder();
+    private final JsonWriter json = new JsonWriter(out);
+
+    TocData(String documentName) {
+        json.beginObject()
+                .property("document", documentName)
+                .name("entries").beginArray();
+    }
+
+    /**
+     * Build ToC data from the rendered ToC, with nested "ul" lists of the entries.
+     */
+    static TocData fromHtml(String documentName, Element toc) {
+        TocData data = new TocData(documentName);
+        Element list = toc.tagName().equals("ul") ? toc : toc.selectFirst("ul");
+        if(list != null) {
+            data.addHtmlLevel(list, 1);
+        }
+        return data;
+    }
+
+    /**
+     * Build ToC data from the section tree.
+     *
+     * @param href function that returns link to the section by its id
+     */
+    static TocData fromSections(String documentName, List<Section> sections, Function<String, String> href) {
+        TocData data = new TocData(documentName);
+        data.addSectionLevel(sections, 1, href);
+        return data;
+    }
+
+    private void addHtmlLevel(Element list, int level) {
+        for(Element item : list.children()) {
+            if(!item.tagName().equals("li")) {
+                continue;
+            }
+            Element link = null;
+            Element children = null;
+            for(Element child : item.children()) {
+                if(link == null && child.tagName().equals("a")) {
+                    link = child;
+                } else if(children == null && child.tagName().equals("ul")) {
+                    children = child;
+                }
+            }
+            if(link == null) {
+                continue;
+            }
+            String href = link.attr("href");
+            String id = link.id();
+            if(id.isEmpty()) {
+                int hash = href.indexOf('#');
+                id = hash != -1 ? href.substring(hash + 1) : "";
+            }
+            beginEntry(id, link.text(), href, level);
+            if(children != null) {
+                addHtmlLevel(children, level + 1);
+            }
+            endEntry();
+        }
+    }
+
+    private void addSectionLevel(List<Section> sections, int level, Function<String, String> href) {
+        sections.forEach(s -> {
+            beginEntry(s.id(), s.title(), href.apply(s.id()), level);
+            addSectionLevel(s.subsections(), level + 1, href);
+            endEntry();
+        });
+    }
+
+    private void beginEntry(String id, String title, String href, int level) {
+        json.beginObject()
+                .property("id", id)
+                .property("title", title)
+                .property("href", href)
+                .property("level", level)
+                .name("children").beginArray();
+    }
+
+    private void endEntry() {
+        json.endArray().endObject();
+    }
+
+    String toJson() {
+        json.endArray().endObject();
+        return out.append('\n').toString();
+    }
+}
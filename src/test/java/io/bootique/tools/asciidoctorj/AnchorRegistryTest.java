@@ -0,0 +1,125 @@
+package io.bootique.tools.asciidoctorj;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class AnchorRegistryTest {
+
+    private static final String DOC_A = "<div class=\"sect1\">\n<h2 id=\"_intro\">Intro</h2>\n<div class=\"sectionbody\">\n"
+            + "<p>See <a href=\"b.html#_setup\">setup</a>, <a href=\"../docs/b.html#note\">note</a>"
+            + " and <a href=\"b.html#_unknown\">unknown</a>.</p>\n</div>\n</div>";
+
+    private static final String DOC_B = "<div class=\"sect1\">\n<h2 id=\"_setup\">Setup</h2>\n<div class=\"sectionbody\">\n"
+            + "<p>Setup</p>\n<div class=\"sect2\">\n<h3 id=\"_details\">Details</h3>\n"
+            + "<div id=\"note\" class=\"paragraph\"><p>Note</p></div>\n</div>\n</div>\n</div>";
+
+    @TempDir
+    Path destination;
+
+    @AfterEach
+    void clearRegistry() {
+        AnchorRegistry.clear();
+    }
+
+    @Test
+    void resolve() {
+        AnchorRegistry registry = new AnchorRegistry();
+        registry.register("b", Collections.singletonMap("_setup", "/docs/b/setup"));
+
+        assertEquals("/docs/b/setup", registry.resolve("b.html#_setup"));
+        assertEquals("/docs/b/setup", registry.resolve("../guide/b.html#_setup"));
+        assertNull(registry.resolve("b.html#_other"));
+        assertNull(registry.resolve("c.html#_setup"));
+        assertNull(registry.resolve("https://example.com/b.html#_setup"));
+        assertNull(registry.resolve("b.html"));
+        assertNull(registry.resolve("b.pdf#_setup"));
+    }
+
+    @Test
+    void crossDocumentLinks() throws Exception {
+        String page = split("b", DOC_B, "setup.html");
+        assertTrue(page.contains("Setup"), page);
+
+        InternalLogger logger = mock(InternalLogger.class);
+        page = split("a", DOC_A, "intro.html", logger);
+        assertTrue(page.contains("<a href=\"/docs/b/setup\">setup</a>"), page);
+        assertTrue(page.contains("<a href=\"/docs/b/setup#note\">note</a>"), page);
+        assertTrue(page.contains("<a href=\"b.html#_unknown\">unknown</a>"), page);
+        verify(logger).warn(contains("'b.html#_unknown'"));
+        verify(logger, times(1)).warn(anyString());
+
+        String registry = new String(Files.readAllBytes(destination.resolve(AnchorRegistry.FILE_NAME)), "UTF-8");
+        assertEquals("# hugo anchor registry v1\n"
+                + "a _intro /docs/a/intro\n"
+                + "b _details /docs/b/setup#_details\n"
+                + "b _setup /docs/b/setup\n"
+                + "b note /docs/b/setup#note\n", registry);
+
+        // a new build of a single document uses the persisted registry
+        AnchorRegistry.clear();
+        page = split("a", DOC_A, "intro.html");
+        assertTrue(page.contains("<a href=\"/docs/b/setup\">setup</a>"), page);
+    }
+
+    @Test
+    void linksToDocumentsNotConvertedYet() throws Exception {
+        InternalLogger logger = mock(InternalLogger.class);
+        String page = split("a", DOC_A, "intro.html", logger);
+        assertTrue(page.contains("<a href=\"b.html#_setup\">setup</a>"), page);
+        verify(logger).warn(contains("'b.html#_setup'"));
+        verify(logger).warn(contains("'../docs/b.html#note'"));
+        verify(logger).warn(contains("'b.html#_unknown'"));
+
+        // the next build resolves them
+        AnchorRegistry.clear();
+        split("b", DOC_B, "setup.html");
+        page = split("a", DOC_A, "intro.html");
+        assertTrue(page.contains("<a href=\"/docs/b/setup\">setup</a>"), page);
+    }
+
+    @Test
+    void mergeDocumentsRegisteredByOtherBuilds() throws Exception {
+        split("b", DOC_B, "setup.html");
+
+        // another build registers a document in the same destination
+        Path registryFile = destination.resolve(AnchorRegistry.FILE_NAME);
+        String registry = new String(Files.readAllBytes(registryFile), "UTF-8");
+        Files.write(registryFile, (registry + "c _other /docs/c/other\n").getBytes("UTF-8"));
+
+        split("a", DOC_A, "intro.html");
+        assertEquals("# hugo anchor registry v1\n"
+                + "a _intro /docs/a/intro\n"
+                + "b _details /docs/b/setup#_details\n"
+                + "b _setup /docs/b/setup\n"
+                + "b note /docs/b/setup#note\n"
+                + "c _other /docs/c/other\n", new String(Files.readAllBytes(registryFile), "UTF-8"));
+    }
+
+    private String split(String documentName, String html, String pageName) throws Exception {
+        return split(documentName, html, pageName, mock(InternalLogger.class));
+    }
+
+    private String split(String documentName, String html, String pageName, InternalLogger logger) throws Exception {
+        DocInfo docInfo = new DocInfo(documentName);
+        docInfo.multipage = true;
+        docInfo.multipageRef = "/docs/";
+        docInfo.anchorRegistry = true;
+
+        ContentWriter writer = new ContentWriter(destination.toString(), docInfo, logger);
+        new ProcessorMultipage().process(new ProcessorContext(docInfo, writer, logger), new DocumentContent(html));
+        writer.flush();
+        return new String(Files.readAllBytes(destination.resolve(documentName).resolve(pageName)), "UTF-8");
+    }
+}
@@ -0,0 +1,91 @@
+package io.bootique.tools.asciidoctorj;
+
+import org.asciidoctor.ast.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AssetCacheTest {
+
+    @TempDir
+    Path dir;
+
+    @AfterEach
+    void clearCache() {
+        AssetCache.clear();
+    }
+
+    @Test
+    void assetReadOnce() throws IOException {
+        Path header = dir.resolve("header.html");
+        Files.write(header, "---\ntitle: test\n---\n".getBytes(StandardCharsets.UTF_8));
+        Document document = mockDocument();
+
+        assertEquals("---\ntitle: test\n---\n", AssetCache.read(document, header.toString()));
+        assertEquals("---\ntitle: test\n---\n", AssetCache.read(mockDocument(), header.toString()));
+        verify(document, times(1)).readAsset(anyString(), anyMap());
+    }
+
+    @Test
+    void changedAssetReloaded() throws IOException {
+        Path header = dir.resolve("header.html");
+        Files.write(header, "---\n---\n".getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(header, FileTime.fromMillis(1_000_000L));
+        Document document = mockDocument();
+
+        assertEquals("---\n---\n", AssetCache.read(document, header.toString()));
+
+        Files.write(header, "---\ntitle: changed\n---\n".getBytes(StandardCharsets.UTF_8));
+        assertEquals("---\ntitle: changed\n---\n", AssetCache.read(document, header.toString()));
+        verify(document, times(2)).readAsset(anyString(), anyMap());
+    }
+
+    @Test
+    void assetsOfDocumentDirectories() throws IOException {
+        Path guide = Files.createDirectories(dir.resolve("guide"));
+        Path reference = Files.createDirectories(dir.resolve("reference"));
+        Files.write(guide.resolve("header.html"), "---\ntitle: guide\n---\n".getBytes(StandardCharsets.UTF_8));
+        Files.write(reference.resolve("header.html"), "---\ntitle: reference\n---\n".getBytes(StandardCharsets.UTF_8));
+
+        assertEquals("---\ntitle: guide\n---\n", AssetCache.read(mockDocument(guide), "header.html"));
+        assertEquals("---\ntitle: reference\n---\n", AssetCache.read(mockDocument(reference), "header.html"));
+        assertEquals("---\ntitle: guide\n---\n", AssetCache.read(mockDocument(guide), "header.html"));
+    }
+
+    @Test
+    void missingAsset() {
+        Document document = mockDocument();
+        assertNull(AssetCache.read(document, dir.resolve("missing.html").toString()));
+        assertNull(AssetCache.read(document, dir.resolve("missing.html").toString()));
+        verify(document, times(2)).readAsset(anyString(), anyMap());
+    }
+
+    private static Document mockDocument() {
+        return mockDocument(null);
+    }
+
+    private static Document mockDocument(Path docDir) {
+        Document document = mock(Document.class);
+        when(document.getAttribute("docdir", "")).thenReturn(docDir != null ? docDir.toString() : "");
+        when(document.readAsset(anyString(), anyMap())).then(invocation -> {
+            Path path = Paths.get(invocation.<String>getArgument(0));
+            return Files.exists(path) ? new String(Files.readAllBytes(path), StandardCharsets.UTF_8) : null;
+        });
+        return document;
+    }
+}
@@ -0,0 +1,96 @@
+package io.bootique.tools.asciidoctorj;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class BuildReportTest {
+
+    @TempDir
+    Path destination;
+
+    @Test
+    void processorsReported() throws IOException {
+        ProcessingReport report = process("book", SyntheticBook.html(20, true));
+
+        // icons and html processors run over the split pages as a part of the multipage stage
+        assertEquals(3, report.stages().size());
+        assertEquals("toc", report.stages().get(0).processor);
+        assertEquals("front-matter", report.stages().get(2).processor);
+        report.stages().forEach(stage -> assertTrue(stage.wallTimeNanos >= 0));
+
+        ProcessingReport.Stage toc = report.stages().get(0);
+        assertTrue(toc.inputChars > toc.outputChars);
+        assertEquals(1, toc.pages);
+
+        // a page for each of the two chapters, ToC page is already counted
+        assertEquals(2, report.stages().get(1).pages);
+        assertEquals(3, report.pages());
+    }
+
+    @Test
+    void parsedContentSize() {
+        ProcessingReport report = process("book", SyntheticBook.html(20, true), false);
+
+        // icons processor parses the content and html processor gets the DOM, its size is the size of the parsed HTML
+        assertEquals(Arrays.asList("toc", "fa-icons", "html", "front-matter"), report.stages().stream()
+                .map(stage -> stage.processor).collect(Collectors.toList()));
+        ProcessingReport.Stage icons = report.stages().get(1);
+        ProcessingReport.Stage html = report.stages().get(2);
+        assertEquals(report.stages().get(0).outputChars, icons.inputChars);
+        assertEquals(icons.inputChars, html.inputChars);
+        assertTrue(report.stages().get(3).inputChars > 0);
+    }
+
+    @Test
+    void reportFile() throws IOException {
+        Path file = destination.resolve(BuildReport.DEFAULT_FILE_NAME);
+        BuildReport.forFile(file).add(process("second", SyntheticBook.html(2)));
+        BuildReport.forFile(file).add(process("first\"doc", SyntheticBook.html(2)));
+
+        String json = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+        // documents are appended in the processing order
+        assertTrue(json.startsWith("{\n  \"documents\": [\n    {\n      \"name\": \"second\","), json);
+        assertTrue(json.indexOf("\"first\\\"doc\"") > json.indexOf("second"));
+        assertTrue(json.endsWith("}\n  ]\n}\n"), json);
+        assertTrue(json.contains("\"name\": \"multipage\""));
+        assertTrue(json.contains("\"pages\": 2"));
+
+        // a report of the previous build is replaced
+        BuildReport.clear();
+        BuildReport.forFile(file).add(process("third", SyntheticBook.html(2)));
+        json = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+        assertTrue(json.contains("\"third\""));
+        assertFalse(json.contains("\"second\""));
+
+        // same document processed again in the same JVM starts a new build
+        BuildReport.forFile(file).add(process("fourth", SyntheticBook.html(2)));
+        BuildReport.forFile(file).add(process("third", SyntheticBook.html(2)));
+        json = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+        assertTrue(json.contains("\"third\""));
+        assertFalse(json.contains("\"fourth\""));
+    }
+
+    private ProcessingReport process(String documentName, String html) {
+        return process(documentName, html, true);
+    }
+
+    private ProcessingReport process(String documentName, String html, boolean multipage) {
+        DocInfo docInfo = new DocInfo(documentName);
+        docInfo.multipage = multipage;
+        ContentWriter writer = new ContentWriter(destination.toString(), docInfo, mock(InternalLogger.class));
+        ProcessingReport report = new ProcessingReport(documentName);
+        HugoExtension.process(new ProcessorContext(docInfo, writer, mock(InternalLogger.class)), html, report);
+        report.finish(writer);
+        return report;
+    }
+}
@@ -0,0 +1,285 @@
+package io.bootique.tools.asciidoctorj;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ContentWriterTest {
+
+    @TempDir
+    Path destination;
+
+    @Test
+    void parallelFlush() throws IOException {
+        ContentWriter writer = createWriter(4);
+        for(int i = 0; i < 200; i++) {
+            writer.addContent("page" + i + ".html", "folder" + (i % 3), "content " + i);
+        }
+        writer.addContent("doc.toc.html", "toc");
+        writer.flush();
+
+        for(int i = 0; i < 200; i++) {
+            assertEquals("content " + i, read(destination.resolve("folder" + (i % 3)).resolve("page" + i + ".html")));
+        }
+        assertEquals("toc", read(destination.resolve("doc.toc.html")));
+    }
+
+    @Test
+    void allFailuresReported() throws IOException {
+        // a file that blocks directory creation and a directory that blocks a file write
+        Files.write(destination.resolve("blocked"), new byte[0]);
+        Files.createDirectories(destination.resolve("folder").resolve("page0.html"));
+
+        ContentWriter writer = createWriter(4);
+        writer.addContent("page0.html", "blocked", "content");
+        writer.addContent("page0.html", "folder", "content");
+        writer.addContent("page1.html", "folder", "content 1");
+        writer.addContent("page2.html", "folder", "content 2");
+
+        RuntimeException exception = assertThrows(RuntimeException.class, writer::flush);
+        assertInstanceOf(IOException.class, exception.getCause());
+        assertEquals(1, exception.getSuppressed().length);
+
+        assertEquals("content 1", read(destination.resolve("folder").resolve("page1.html")));
+        assertEquals("content 2", read(destination.resolve("folder").resolve("page2.html")));
+    }
+
+    @Test
+    void lazyContentFailuresReported() throws IOException {
+        ContentWriter writer = createWriter(4);
+        for(int i = 0; i < 10; i++) {
+            String content = "content " + i;
+            writer.replaceContent("page" + i + ".html", "folder", i % 5 == 0
+                    ? () -> { throw new IllegalStateException(content); }
+                    : () -> content);
+        }
+
+        RuntimeException exception = assertThrows(RuntimeException.class, writer::flush);
+        assertInstanceOf(IllegalStateException.class, exception.getCause());
+        assertEquals(1, exception.getSuppressed().length);
+        for(int i = 0; i < 10; i++) {
+            Path page = destination.resolve("folder").resolve("page" + i + ".html");
+            if(i % 5 == 0) {
+                assertFalse(Files.exists(page));
+            } else {
+                assertEquals("content " + i, read(page));
+            }
+        }
+    }
+
+    @Test
+    void contentWrittenOnSuccess() throws IOException {
+        ContentWriter writer = createWriter(2);
+        writer.addContent("page1.html", "folder", "content 1");
+        writer.replaceContentOnSuccess("manifest", "folder", "page1.html");
+        writer.flush();
+        assertEquals("page1.html", read(destination.resolve("folder").resolve("manifest")));
+
+        // a directory that blocks a file write
+        Files.createDirectories(destination.resolve("folder").resolve("page0.html"));
+        writer = createWriter(2);
+        writer.addContent("page0.html", "folder", "content 0");
+        writer.addContent("page2.html", "folder", "content 2");
+        writer.replaceContentOnSuccess("manifest", "folder", "page0.html page2.html");
+        assertThrows(RuntimeException.class, writer::flush);
+        assertEquals("content 2", read(destination.resolve("folder").resolve("page2.html")));
+        assertEquals("page1.html", read(destination.resolve("folder").resolve("manifest")));
+    }
+
+    @Test
+    void contentRegistry() {
+        InternalLogger logger = mock(InternalLogger.class);
+        ContentWriter writer = createWriter(1, false, logger);
+
+        writer.addContent("doc.toc.html", "toc");
+        writer.addContent("page.html", "doc", "page");
+        assertEquals("toc", writer.getContent("doc.toc.html", null));
+        assertNull(writer.getContent("page.html", null));
+        assertEquals("page", writer.getContent("page.html", "doc"));
+        assertNull(writer.getContent("page.html", "other"));
+
+        writer.replaceContent("doc.toc.html", null, "new toc");
+        assertEquals("new toc", writer.getContent("doc.toc.html", null));
+        verify(logger, never()).warn(anyString());
+
+        writer.addContent("page.html", "doc", "duplicate");
+        assertEquals("duplicate", writer.getContent("page.html", "doc"));
+        verify(logger, times(1)).warn(anyString());
+    }
+
+    @Test
+    void unchangedFilesSkipped() throws IOException {
+        ContentWriter writer = createWriter(1, true);
+        writer.addContent("same.html", "docs", "same content");
+        writer.addContent("changed.html", "docs", "old content");
+        writer.flush();
+
+        Path same = destination.resolve("docs").resolve("same.html");
+        Path changed = destination.resolve("docs").resolve("changed.html");
+        FileTime oldTime = FileTime.fromMillis(1_000_000L);
+        Files.setLastModifiedTime(same, oldTime);
+        Files.setLastModifiedTime(changed, oldTime);
+
+        writer = createWriter(1, true);
+        writer.addContent("same.html", "docs", "same content");
+        writer.addContent("changed.html", "docs", "new content");
+        writer.addContent("new.html", "docs", "new file");
+        writer.flush();
+
+        assertEquals(oldTime, Files.getLastModifiedTime(same));
+        assertEquals("same content", read(same));
+        assertNotEquals(oldTime, Files.getLastModifiedTime(changed));
+        assertEquals("new content", read(changed));
+        assertEquals("new file", read(destination.resolve("docs").resolve("new.html")));
+
+        try(Stream<Path> files = Files.list(destination.resolve("docs"))) {
+            assertEquals(3, files.count(), "No temporary files should be left");
+        }
+    }
+
+    @Test
+    void replacedFilesKeepDefaultPermissions() throws IOException {
+        assumeTrue(destination.getFileSystem().supportedFileAttributeViews().contains("posix"));
+        Path reference = destination.resolve("reference.html");
+        Files.write(reference, new byte[0]);
+
+        ContentWriter writer = createWriter(1, true);
+        writer.addContent("page.html", "docs", "old content");
+        writer.flush();
+        writer = createWriter(1, true);
+        writer.addContent("page.html", "docs", "new content");
+        writer.flush();
+
+        assertEquals(Files.getPosixFilePermissions(reference),
+                Files.getPosixFilePermissions(destination.resolve("docs").resolve("page.html")));
+    }
+
+    @Test
+    void gzipSiblings() throws IOException {
+        ContentWriter writer = createGzipWriter();
+        writer.addContent("same.html", "docs", "same content");
+        writer.addContent("changed.html", "docs", "old content");
+        writer.flush();
+
+        Path same = destination.resolve("docs").resolve("same.html.gz");
+        Path changed = destination.resolve("docs").resolve("changed.html.gz");
+        assertEquals("same content", readGzip(same));
+        assertEquals("old content", readGzip(changed));
+        FileTime oldTime = FileTime.fromMillis(1_000_000L);
+        Files.setLastModifiedTime(same, oldTime);
+        Files.setLastModifiedTime(changed, oldTime);
+
+        writer = createGzipWriter();
+        writer.addContent("same.html", "docs", "same content");
+        writer.addContent("changed.html", "docs", "new content");
+        writer.flush();
+
+        assertEquals(oldTime, Files.getLastModifiedTime(same));
+        assertNotEquals(oldTime, Files.getLastModifiedTime(changed));
+        assertEquals("new content", readGzip(changed));
+
+        writer.deleteContent("changed.html", "docs");
+        assertFalse(Files.exists(changed));
+    }
+
+    @Test
+    void gzipSiblingsOfChangedLevel() throws IOException {
+        ContentWriter writer = createGzipWriter(Deflater.BEST_SPEED);
+        writer.addContent("page.html", "docs", "content");
+        writer.flush();
+
+        Path gzip = destination.resolve("docs").resolve("page.html.gz");
+        FileTime oldTime = FileTime.fromMillis(1_000_000L);
+        Files.setLastModifiedTime(gzip, oldTime);
+
+        writer = createGzipWriter(Deflater.BEST_SPEED);
+        writer.addContent("page.html", "docs", "content");
+        writer.flush();
+        assertEquals(oldTime, Files.getLastModifiedTime(gzip));
+
+        writer = createGzipWriter(Deflater.BEST_COMPRESSION);
+        writer.addContent("page.html", "docs", "content");
+        writer.flush();
+        assertNotEquals(oldTime, Files.getLastModifiedTime(gzip));
+        assertEquals("content", readGzip(gzip));
+    }
+
+    @Test
+    void gzipSiblingsOfManyPages() throws IOException {
+        ContentWriter writer = createGzipWriter();
+        for(int i = 0; i < 100; i++) {
+            writer.addContent("page" + i + ".html", "docs", "content " + i);
+        }
+        writer.flush();
+
+        for(int i = 0; i < 100; i++) {
+            assertEquals("content " + i, readGzip(destination.resolve("docs").resolve("page" + i + ".html.gz")));
+        }
+        if(destination.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+            assertEquals(Files.getPosixFilePermissions(destination.resolve("docs").resolve("page0.html")),
+                    Files.getPosixFilePermissions(destination.resolve("docs").resolve("page0.html.gz")));
+        }
+    }
+
+    private ContentWriter createGzipWriter() {
+        return createGzipWriter(Deflater.BEST_COMPRESSION);
+    }
+
+    private ContentWriter createGzipWriter(int level) {
+        DocInfo docInfo = mock(DocInfo.class);
+        when(docInfo.writeThreads()).thenReturn(2);
+        when(docInfo.precompress()).thenReturn(true);
+        when(docInfo.precompressLevel()).thenReturn(level);
+        return new ContentWriter(destination.toString(), docInfo, mock(InternalLogger.class));
+    }
+
+    private ContentWriter createWriter(int threads) {
+        return createWriter(threads, false);
+    }
+
+    private ContentWriter createWriter(int threads, boolean skipUnchanged) {
+        return createWriter(threads, skipUnchanged, mock(InternalLogger.class));
+    }
+
+    private ContentWriter createWriter(int threads, boolean skipUnchanged, InternalLogger logger) {
+        DocInfo docInfo = mock(DocInfo.class);
+        when(docInfo.writeThreads()).thenReturn(threads);
+        when(docInfo.skipUnchanged()).thenReturn(skipUnchanged);
+        return new ContentWriter(destination.toString(), docInfo, logger);
+    }
+
+    private static String readGzip(Path path) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try(InputStream in = new GZIPInputStream(Files.newInputStream(path))) {
+            byte[] buffer = new byte[1024];
+            int read;
+            while((read = in.read(buffer)) > 0) {
+                out.write(buffer, 0, read);
+            }
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static String read(Path path) throws IOException {
+        return new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+    }
+}
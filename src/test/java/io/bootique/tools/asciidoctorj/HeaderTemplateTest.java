@@ -0,0 +1,52 @@
+package io.bootique.tools.asciidoctorj;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HeaderTemplateTest {
+
+    @Test
+    void render() {
+        HeaderTemplate template = HeaderTemplate.compile("---\ntitle: \"{title}\"\nweight: {weight}\n"
+                + "id: {id}\nlevel: {level}\nparent: {parent}\nprev: {prev}\nnext: {next}\nkeep: {other}\n---\n");
+
+        assertEquals("---\ntitle: \"Title\"\nweight: 10\nid: section\nlevel: 1\nparent: /docs/doc/parent\n"
+                + "prev: /docs/doc/prev\nnext: \nkeep: {other}\n---\n", render(template, "Title"));
+    }
+
+    @Test
+    void renderLiteralValues() {
+        HeaderTemplate template = HeaderTemplate.compile("{title}{{title}}{title");
+        assertEquals("$1 \\ {weight}{$1 \\ {weight}}{title", render(template, "$1 \\ {weight}"));
+    }
+
+    @Test
+    void renderNoPlaceholders() {
+        assertEquals("---\n---\n", render(HeaderTemplate.compile("---\n---\n"), "Title"));
+        assertEquals("", render(HeaderTemplate.compile(""), "Title"));
+    }
+
+    private static String render(HeaderTemplate template, String title) {
+        StringBuilder sb = new StringBuilder();
+        template.render(sb, placeholder -> {
+            switch (placeholder) {
+                case TITLE:
+                    return title;
+                case WEIGHT:
+                    return "10";
+                case ID:
+                    return "section";
+                case LEVEL:
+                    return "1";
+                case PARENT:
+                    return "/docs/doc/parent";
+                case PREV:
+                    return "/docs/doc/prev";
+                default:
+                    return "";
+            }
+        });
+        return sb.toString();
+    }
+}
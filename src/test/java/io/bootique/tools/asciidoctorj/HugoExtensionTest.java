@@ -0,0 +1,190 @@
+package io.bootique.tools.asciidoctorj;
+
+import org.jsoup.nodes.Document;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.ArgumentMatchers.nullable;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class HugoExtensionTest {
+
+    private static final List<ContentProcessor> PROCESSORS = Arrays.asList(
+            new ProcessorToC(),
+            new ProcessorFaIcons(),
+            new ProcessorHtmlContent(),
+            new ProcessorMultipage(),
+            new ProcessorFrontMatter()
+    );
+
+    @Test
+    void singlePage() throws IOException {
+        assertSharedDomOutputIsIdentical("book.html", false, true, false);
+        assertSharedDomOutputIsIdentical("book.html", false, false, true);
+        assertSharedDomOutputIsIdentical("docs.html", false, true, false);
+    }
+
+    @Test
+    void multipage() throws IOException {
+        assertSharedDomOutputIsIdentical("book.html", true, true, false);
+        assertSharedDomOutputIsIdentical("book.html", true, false, true);
+        assertSharedDomOutputIsIdentical("docs.html", true, true, true);
+    }
+
+    @Test
+    void streamEngineDoesNotParseDocument() throws IOException {
+        String content = getTestContent("book.html");
+        for(boolean keepPreamble : new boolean[]{false, true}) {
+            List<String> expectedPages = new ArrayList<>();
+            String expected = HugoExtension.process(getContext(true, true, keepPreamble, false, expectedPages), content);
+
+            List<String> pages = new ArrayList<>();
+            ProcessorContext context = getContext(true, true, keepPreamble, true, pages);
+            DocumentContent documentContent = new DocumentContent(content) {
+                @Override
+                public Document dom() {
+                    return fail("Document should not be parsed by the stream engine");
+                }
+            };
+            String processed = HugoExtension.process(context, documentContent, new ProcessingReport("docs"));
+
+            assertEquals(expected, processed);
+            assertEquals(expectedPages, pages);
+            verify(context.logger(), never()).warn(anyString());
+        }
+    }
+
+    @Test
+    void concurrentProcessing() throws Exception {
+        int documents = 64;
+        String[] resources = {"book.html", "docs.html"};
+
+        List<String> expected = new ArrayList<>();
+        for(int i = 0; i < documents; i++) {
+            expected.add(processDocument(resources[i % resources.length], i));
+        }
+        // weights and other per-document state should not leak between documents
+        assertEquals(expected.get(0), expected.get(resources.length * 2));
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(4, Runtime.getRuntime().availableProcessors()));
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for(int i = 0; i < documents; i++) {
+                String resource = resources[i % resources.length];
+                int variant = i;
+                results.add(executor.submit(() -> processDocument(resource, variant)));
+            }
+            for(int i = 0; i < documents; i++) {
+                assertEquals(expected.get(i), results.get(i).get(), "Document #" + i);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Process document and return both its content and all generated pages
+     */
+    private String processDocument(String resource, int variant) throws IOException {
+        List<String> pages = new ArrayList<>();
+        ProcessorContext context = getContext(true, variant % 4 < 2, variant % 2 == 0, pages);
+        pages.add(HugoExtension.process(context, getTestContent(resource)));
+        return String.join("\n", pages);
+    }
+
+    private void assertSharedDomOutputIsIdentical(String resource, boolean multipage, boolean convertToFa, boolean keepPreamble)
+            throws IOException {
+        String content = getTestContent(resource);
+
+        List<String> expectedPages = new ArrayList<>();
+        String expected = processSeparately(getContext(multipage, convertToFa, keepPreamble, expectedPages), content);
+
+        List<String> pages = new ArrayList<>();
+        String processed = HugoExtension.process(getContext(multipage, convertToFa, keepPreamble, pages), content);
+
+        assertEquals(expected, processed);
+        assertEquals(expectedPages, pages);
+    }
+
+    /**
+     * Emulates processing with each processor parsing and serializing content on its own
+     */
+    private static String processSeparately(ProcessorContext context, String content) {
+        for(ContentProcessor processor : PROCESSORS) {
+            DocumentContent documentContent = new DocumentContent(content);
+            processor.process(context, documentContent);
+            content = documentContent.html();
+        }
+        return content;
+    }
+
+    private static ProcessorContext getContext(boolean multipage, boolean convertToFa, boolean keepPreamble, List<String> pages) {
+        return getContext(multipage, convertToFa, keepPreamble, false, pages);
+    }
+
+    private static ProcessorContext getContext(boolean multipage, boolean convertToFa, boolean keepPreamble,
+                                               boolean streamEngine, List<String> pages) {
+        DocInfo docInfo = mock(DocInfo.class);
+
+        when(docInfo.isMultipage()).thenReturn(multipage);
+        when(docInfo.multipageStreamEngine()).thenReturn(streamEngine);
+        when(docInfo.multipageLevel()).thenReturn(2);
+        when(docInfo.convertToFa()).thenReturn(convertToFa);
+        when(docInfo.iconMapping()).thenReturn(IconMapping.forVersion("4"));
+        when(docInfo.keepPreamble()).thenReturn(keepPreamble);
+        when(docInfo.header()).thenReturn("---\ntitle: test\n---\n");
+        when(docInfo.multipageHeader()).thenReturn("---\ntitle: {title}\nweight: {weight}\n---\n");
+        when(docInfo.multipageRef()).thenReturn("/docs/");
+        when(docInfo.documentName()).thenReturn("docs");
+
+        // files added without a folder, so the multipage processor replaces the ToC extracted before
+        Map<String, String> files = new HashMap<>();
+        ContentWriter writer = mock(ContentWriter.class);
+        doAnswer(invocation -> {
+            files.put(invocation.getArgument(0), invocation.getArgument(1).toString());
+            return pages.add(invocation.getArgument(0) + ":" + invocation.getArgument(1));
+        }).when(writer).addContent(anyString(), any(CharSequence.class));
+        when(writer.getContent(anyString(), isNull())).then(invocation -> files.get(invocation.<String>getArgument(0)));
+        doAnswer(invocation -> pages.add(invocation.getArgument(0) + ":" + invocation.getArgument(2)))
+                .when(writer).replaceContent(anyString(), nullable(String.class), any(CharSequence.class));
+        doAnswer(invocation -> pages.add(invocation.getArgument(0) + ":"
+                        + invocation.<Supplier<CharSequence>>getArgument(2).get()))
+                .when(writer).replaceContent(anyString(), nullable(String.class), ArgumentMatchers.<Supplier<CharSequence>>any());
+        InternalLogger logger = mock(InternalLogger.class);
+        return new ProcessorContext(docInfo, writer, logger);
+    }
+
+    private String getTestContent(String resource) throws IOException {
+        try(InputStream is = getClass().getClassLoader().getResourceAsStream(resource)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = is.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package io.bootique.tools.asciidoctorj;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImageSizeTest {
+
+    @TempDir
+    Path dir;
+
+    @AfterEach
+    void clearCache() {
+        ImageSize.clear();
+    }
+
+    @Test
+    void rasterImages() throws IOException {
+        for(String format : new String[]{"png", "jpg", "gif"}) {
+            Path file = dir.resolve("image." + format);
+            assertTrue(ImageIO.write(new BufferedImage(320, 200, BufferedImage.TYPE_INT_RGB), format, file.toFile()));
+
+            ImageSize size = ImageSize.of(file);
+            assertEquals(320, size.width, format);
+            assertEquals(200, size.height, format);
+        }
+    }
+
+    @Test
+    void jpegOrientation() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(320, 200, BufferedImage.TYPE_INT_RGB), "jpg", out);
+        byte[] jpeg = out.toByteArray();
+
+        for(boolean littleEndian : new boolean[]{false, true}) {
+            ImageSize rotated = ImageSize.read(new ByteArrayInputStream(withOrientation(jpeg, 6, littleEndian)), false);
+            assertEquals(200, rotated.width);
+            assertEquals(320, rotated.height);
+
+            ImageSize upsideDown = ImageSize.read(new ByteArrayInputStream(withOrientation(jpeg, 3, littleEndian)), false);
+            assertEquals(320, upsideDown.width);
+            assertEquals(200, upsideDown.height);
+        }
+    }
+
+    /**
+     * Insert EXIF segment with a single orientation entry right after the JPEG start of image marker
+     */
+    private static byte[] withOrientation(byte[] jpeg, int orientation, boolean littleEndian) {
+        byte[] tiff = littleEndian
+                ? new byte[]{'I', 'I', 0x2A, 0, 8, 0, 0, 0, 1, 0, 0x12, 0x01, 3, 0, 1, 0, 0, 0, (byte) orientation, 0, 0, 0, 0, 0, 0, 0}
+                : new byte[]{'M', 'M', 0, 0x2A, 0, 0, 0, 8, 0, 1, 0x01, 0x12, 0, 3, 0, 0, 0, 1, 0, (byte) orientation, 0, 0, 0, 0, 0, 0};
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(jpeg, 0, 2);
+        int length = 2 + 6 + tiff.length;
+        out.write(new byte[]{(byte) 0xFF, (byte) 0xE1, (byte) (length >> 8), (byte) length, 'E', 'x', 'i', 'f', 0, 0}, 0, 10);
+        out.write(tiff, 0, tiff.length);
+        out.write(jpeg, 2, jpeg.length - 2);
+        return out.toByteArray();
+    }
+
+    @Test
+    void svg() throws IOException {
+        assertSvg(120, 80, "<?xml version=\"1.0\"?>\n<!-- logo -->\n<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"120\" height=\"80px\">");
+        assertSvg(64, 32, "<svg viewBox=\"0 0 64 32\" width=\"100%\">");
+        assertSvg(10, 5, "<svg height='5.2' width='10'>");
+        assertSvg(0, 0, "<svg width=\"10em\" height=\"5em\">");
+        assertSvg(0, 0, "<html></html>");
+    }
+
+    @Test
+    void unknownFormat() throws IOException {
+        Path file = dir.resolve("image.bmp");
+        Files.write(file, new byte[]{'B', 'M', 0, 0});
+        assertFalse(ImageSize.of(file).isKnown());
+
+        Path empty = dir.resolve("empty.png");
+        Files.write(empty, new byte[0]);
+        assertFalse(ImageSize.of(empty).isKnown());
+    }
+
+    @Test
+    void cached() throws IOException {
+        Path file = dir.resolve("image.gif");
+        ImageIO.write(new BufferedImage(10, 20, BufferedImage.TYPE_INT_RGB), "gif", file.toFile());
+        ImageSize size = ImageSize.of(file);
+        assertSame(size, ImageSize.of(file));
+
+        ImageIO.write(new BufferedImage(30, 40, BufferedImage.TYPE_INT_RGB), "png", file.toFile());
+        Files.setLastModifiedTime(file, FileTime.fromMillis(1_000_000L));
+        assertEquals(30, ImageSize.of(file).width);
+    }
+
+    private static void assertSvg(int width, int height, String svg) throws IOException {
+        ImageSize size = ImageSize.read(new ByteArrayInputStream(svg.getBytes(StandardCharsets.UTF_8)), true);
+        assertEquals(width, size.width, svg);
+        assertEquals(height, size.height, svg);
+    }
+}
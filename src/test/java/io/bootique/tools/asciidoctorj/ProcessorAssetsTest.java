@@ -0,0 +1,121 @@
+package io.bootique.tools.asciidoctorj;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class ProcessorAssetsTest {
+
+    @TempDir
+    Path source;
+
+    @TempDir
+    Path destination;
+
+    @AfterEach
+    void clearCache() {
+        AssetFingerprints.clear();
+    }
+
+    @Test
+    void fingerprintedName() {
+        assertEquals("logo.0123.png", AssetFingerprints.fingerprintedName("logo.png", "0123"));
+        assertEquals("archive.tar.0123.gz", AssetFingerprints.fingerprintedName("archive.tar.gz", "0123"));
+        assertEquals("LICENSE.0123", AssetFingerprints.fingerprintedName("LICENSE", "0123"));
+        assertEquals(".hidden.0123", AssetFingerprints.fingerprintedName(".hidden", "0123"));
+    }
+
+    @Test
+    void fingerprint() throws IOException {
+        Files.createDirectories(source.resolve("images"));
+        Files.write(source.resolve("images").resolve("logo.png"), "logo".getBytes(StandardCharsets.UTF_8));
+        Files.write(destination.resolve("guide.pdf"), "pdf".getBytes(StandardCharsets.UTF_8));
+
+        String html = "<p><img src=\"images/logo.png\" alt=\"logo\"> <img src=\"images/logo.png?v=1\">"
+                + " <a href=\"guide.pdf#page=2\">PDF</a> <a href=\"other.html#s1\">Other</a>"
+                + " <a href=\"https://example.com/x.png\">Remote</a> <img src=\"images/missing.png\"></p>";
+        DocumentContent content = process(html);
+
+        String logo = "images/" + AssetFingerprints.fingerprintedName(source.resolve("images").resolve("logo.png"));
+        String pdf = AssetFingerprints.fingerprintedName(destination.resolve("guide.pdf"));
+        assertTrue(logo.matches("images/logo\\.[0-9a-f]{12}\\.png"), logo);
+        assertEquals("<p><img src=\"" + logo + "\" alt=\"logo\"> <img src=\"" + logo + "?v=1\">"
+                + " <a href=\"" + pdf + "#page=2\">PDF</a> <a href=\"other.html#s1\">Other</a>"
+                + " <a href=\"https://example.com/x.png\">Remote</a> <img src=\"images/missing.png\"></p>", content.html());
+
+        assertEquals("logo", new String(Files.readAllBytes(destination.resolve(logo)), StandardCharsets.UTF_8));
+        assertEquals("pdf", new String(Files.readAllBytes(destination.resolve(pdf)), StandardCharsets.UTF_8));
+
+        // changed asset gets a new name
+        Files.write(source.resolve("images").resolve("logo.png"), "new logo".getBytes(StandardCharsets.UTF_8));
+        String changed = process("<img src=\"images/logo.png\">").html();
+        assertFalse(changed.contains(logo), changed);
+        // original and hashed PDF, two versions of the logo
+        assertEquals(4, countFiles(destination));
+    }
+
+    @Test
+    void encodedReference() throws IOException {
+        Files.write(source.resolve("my image.png"), "image".getBytes(StandardCharsets.UTF_8));
+
+        String html = process("<img src=\"my%20image.png\">").html();
+        String hash = AssetFingerprints.hash(source.resolve("my image.png"));
+        assertEquals("<img src=\"my%20image." + hash + ".png\">", html);
+        assertTrue(Files.isRegularFile(destination.resolve("my image." + hash + ".png")));
+    }
+
+    @Test
+    void outsideOfDestination() throws IOException {
+        Path outside = source.resolve("outside.png");
+        Files.write(outside, "image".getBytes(StandardCharsets.UTF_8));
+        Path sourceDir = source.resolve("doc");
+        Files.createDirectories(sourceDir);
+
+        String html = process("<img src=\"../outside.png\">", sourceDir).html();
+        assertEquals("<img src=\"../outside.png\">", html);
+        assertEquals(0, countFiles(destination));
+        try(Stream<Path> siblings = Files.list(destination.getParent())) {
+            assertTrue(siblings.noneMatch(p -> p.getFileName().toString().startsWith("outside.")));
+        }
+    }
+
+    @Test
+    void disabled() {
+        DocInfo docInfo = new DocInfo("doc");
+        ProcessorContext context = new ProcessorContext(docInfo, mock(ContentWriter.class), mock(InternalLogger.class));
+        assertFalse(new ProcessorAssets().isApplicable(context, new DocumentContent("<img src=\"a.png\">")));
+    }
+
+    private DocumentContent process(String html) {
+        return process(html, source);
+    }
+
+    private DocumentContent process(String html, Path sourceDir) {
+        DocInfo docInfo = new DocInfo("doc");
+        docInfo.assetFingerprint = true;
+        docInfo.sourceDir = sourceDir.toString();
+        InternalLogger logger = mock(InternalLogger.class);
+        ProcessorContext context = new ProcessorContext(docInfo, new ContentWriter(destination.toString(), docInfo, logger), logger);
+
+        DocumentContent content = new DocumentContent(html);
+        ProcessorAssets processor = new ProcessorAssets();
+        assertTrue(processor.isApplicable(context, content));
+        processor.process(context, content);
+        return content;
+    }
+
+    private static long countFiles(Path root) throws IOException {
+        try(Stream<Path> paths = Files.walk(root)) {
+            return paths.filter(Files::isRegularFile).count();
+        }
+    }
+}
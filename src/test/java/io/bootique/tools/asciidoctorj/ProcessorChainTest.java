@@ -0,0 +1,91 @@
+package io.bootique.tools.asciidoctorj;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ProcessorChainTest {
+
+    @TempDir
+    Path classPath;
+
+    @Test
+    void defaultChain() throws IOException {
+        assertEquals(Arrays.asList("toc", "fa-icons", "html", "assets", "multipage", "front-matter"),
+                names(ProcessorChain.forDocument(new DocInfo("doc"), mock(InternalLogger.class))));
+
+        // third-party processors are added before the multipage split
+        assertEquals(Arrays.asList("toc", "fa-icons", "html", "assets", "test", "multipage", "front-matter"),
+                names(testProcessorChain().chain(new DocInfo("doc"), mock(InternalLogger.class))));
+    }
+
+    @Test
+    void customChain() {
+        DocInfo docInfo = new DocInfo("doc");
+        docInfo.processors = Arrays.asList("front-matter", "unknown", "toc");
+        InternalLogger logger = mock(InternalLogger.class);
+
+        assertEquals(Arrays.asList("front-matter", "toc"), names(ProcessorChain.forDocument(docInfo, logger)));
+        verify(logger).warn(startsWith("Unknown content processor 'unknown'"));
+    }
+
+    @Test
+    void notApplicableProcessorsSkipped() {
+        String html = "<div class=\"paragraph\">\n<p>text</p>\n</div>";
+        DocInfo docInfo = new DocInfo("doc");
+        docInfo.processors = Arrays.asList("toc", "fa-icons", "html", "multipage");
+
+        // nothing to do, so content is not even parsed
+        ProcessorContext context = new ProcessorContext(docInfo, mock(ContentWriter.class), mock(InternalLogger.class));
+        assertSame(html, HugoExtension.process(context, html));
+
+        docInfo.header = "---\n---\n";
+        docInfo.processors = Collections.singletonList("front-matter");
+        assertEquals("---\n---\n" + html, HugoExtension.process(context, html));
+    }
+
+    @Test
+    void thirdPartyProcessor() throws IOException {
+        DocInfo docInfo = mock(DocInfo.class);
+        when(docInfo.attribute("test-processor", null)).thenReturn("marked");
+        when(docInfo.processors()).thenReturn(Collections.singletonList("test"));
+        InternalLogger logger = mock(InternalLogger.class);
+        ProcessorContext context = new ProcessorContext(docInfo, mock(ContentWriter.class), logger);
+
+        assertEquals("<div class=\"paragraph marked\">\n <p>text</p>\n</div>",
+                HugoExtension.process(context, new DocumentContent("<div class=\"paragraph\"><p>text</p></div>"),
+                        new ProcessingReport("doc"), testProcessorChain().chain(docInfo, logger)));
+    }
+
+    /**
+     * @return chain with the test processor registered with the ServiceLoader in a class loader of this test only,
+     * so it is not added to the default chain of the other tests
+     */
+    private ProcessorChain testProcessorChain() throws IOException {
+        Path services = classPath.resolve("META-INF").resolve("services");
+        Files.createDirectories(services);
+        Files.write(services.resolve(ContentProcessor.class.getName()),
+                TestContentProcessor.class.getName().getBytes(StandardCharsets.UTF_8));
+        return new ProcessorChain(new URLClassLoader(new URL[]{classPath.toUri().toURL()}, getClass().getClassLoader()));
+    }
+
+    private static List<String> names(List<ContentProcessor> processors) {
+        return processors.stream().map(ContentProcessor::name).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,64 @@
+package io.bootique.tools.asciidoctorj;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class ProcessorFaIconsTest {
+
+    private static final String ADMONITIONS = "<div class=\"admonitionblock tip\"><table><tbody><tr><td class=\"icon\">"
+            + "<i class=\"fa icon-tip\" title=\"Tip\"></i></td></tr></tbody></table></div>\n"
+            + "<div class=\"admonitionblock warning\"><table><tbody><tr><td class=\"icon\">"
+            + "<i class=\"fa icon-warning\" title=\"Warning\"></i></td></tr></tbody></table></div>";
+
+    @Test
+    void defaultMapping() {
+        String html = process(IconMapping.forVersion("4"), ADMONITIONS);
+        assertTrue(html.contains("<i class=\"fa fa-lightbulb-o fa-2x\" title=\"Tip\">"), html);
+        assertTrue(html.contains("<i class=\"fa fa-exclamation-triangle fa-2x\" title=\"Warning\">"), html);
+        assertFalse(html.contains("icon-"));
+    }
+
+    @Test
+    void fontAwesome6() {
+        String html = process(IconMapping.forVersion("6"), ADMONITIONS);
+        assertTrue(html.contains("<i class=\"fa fa-solid fa-lightbulb fa-2x\" title=\"Tip\">"), html);
+        assertTrue(html.contains("<i class=\"fa fa-solid fa-triangle-exclamation fa-2x\" title=\"Warning\">"), html);
+    }
+
+    @Test
+    void customMapping() {
+        Properties overrides = new Properties();
+        overrides.setProperty("icon-tip", " fas fa-star  fa-lg ");
+        overrides.setProperty("icon-warning", "");
+        overrides.setProperty("icon-custom", "fas fa-cog");
+
+        String html = process(IconMapping.forVersion("5").withOverrides(overrides),
+                ADMONITIONS + "<span class=\"icon-custom big\">custom</span>");
+        assertTrue(html.contains("<i class=\"fa fas fa-star fa-lg\" title=\"Tip\">"), html);
+        assertTrue(html.contains("<i class=\"fa icon-warning\" title=\"Warning\">"), html);
+        assertTrue(html.contains("<span class=\"big fas fa-cog\">custom</span>"), html);
+    }
+
+    @Test
+    void noIcons() {
+        DocumentContent content = new DocumentContent("<div class=\"paragraph\"><p>text</p></div>");
+        assertFalse(new ProcessorFaIcons().isApplicable(getContext(IconMapping.forVersion("4")), content));
+        assertFalse(content.isParsed());
+    }
+
+    private static String process(IconMapping mapping, String html) {
+        DocumentContent content = new DocumentContent(html);
+        new ProcessorFaIcons().process(getContext(mapping), content);
+        return content.html();
+    }
+
+    private static ProcessorContext getContext(IconMapping mapping) {
+        DocInfo docInfo = new DocInfo("doc");
+        docInfo.iconMapping = mapping;
+        return new ProcessorContext(docInfo, mock(ContentWriter.class), mock(InternalLogger.class));
+    }
+}
@@ -0,0 +1,77 @@
+package io.bootique.tools.asciidoctorj;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class ProcessorHtmlContentTest {
+
+    @TempDir
+    Path source;
+
+    @AfterEach
+    void clearCache() {
+        ImageSize.clear();
+    }
+
+    @Test
+    void imageAttributes() throws IOException {
+        Files.createDirectories(source.resolve("images"));
+        ImageIO.write(new BufferedImage(400, 300, BufferedImage.TYPE_INT_RGB), "png",
+                source.resolve("images").resolve("a.png").toFile());
+
+        DocInfo docInfo = new DocInfo("doc");
+        docInfo.imageAttributes = true;
+        docInfo.sourceDir = source.toString();
+        InternalLogger logger = mock(InternalLogger.class);
+        ProcessorContext context = new ProcessorContext(docInfo, new ContentWriter("target", docInfo, logger), logger);
+
+        DocumentContent content = new DocumentContent("<img src=\"images/a.png\">"
+                + "<img src=\"images/a.png?v=2\" width=\"200\">"
+                + "<img src=\"images/a.png\" loading=\"eager\" height=\"30\">"
+                + "<img src=\"https://example.com/b.png\">");
+        ProcessorHtmlContent processor = new ProcessorHtmlContent();
+        assertTrue(processor.isApplicable(context, content));
+        processor.process(context, content);
+
+        assertEquals("<img src=\"images/a.png\" width=\"400\" height=\"300\">"
+                + "<img src=\"images/a.png?v=2\" width=\"200\" loading=\"lazy\" decoding=\"async\" height=\"150\">"
+                + "<img src=\"images/a.png\" loading=\"eager\" height=\"30\" decoding=\"async\" width=\"40\">"
+                + "<img src=\"https://example.com/b.png\" loading=\"lazy\" decoding=\"async\">", content.html());
+    }
+
+    @Test
+    void multipageImageAttributes(@TempDir Path destination) throws IOException {
+        String html = "<div class=\"sect1\">\n<h2 id=\"_one\">One</h2>\n<div class=\"sectionbody\">\n"
+                + "<img src=\"https://example.com/a.png\"><img src=\"https://example.com/b.png\">\n</div>\n</div>\n"
+                + "<div class=\"sect1\">\n<h2 id=\"_two\">Two</h2>\n<div class=\"sectionbody\">\n"
+                + "<img src=\"https://example.com/c.png\">\n</div>\n</div>";
+        for(boolean streamEngine : new boolean[]{false, true}) {
+            DocInfo docInfo = new DocInfo("doc");
+            docInfo.imageAttributes = true;
+            docInfo.sourceDir = source.toString();
+            docInfo.multipage = true;
+            docInfo.multipageStreamEngine = streamEngine;
+            InternalLogger logger = mock(InternalLogger.class);
+            ContentWriter writer = new ContentWriter(destination.toString(), docInfo, logger);
+            HugoExtension.process(new ProcessorContext(docInfo, writer, logger), html);
+            writer.flush();
+
+            // each page starts with eager images
+            String one = new String(Files.readAllBytes(destination.resolve("doc").resolve("one.html")), "UTF-8");
+            assertTrue(one.contains("<img src=\"https://example.com/a.png\">"), one);
+            assertTrue(one.contains("<img src=\"https://example.com/b.png\" loading=\"lazy\" decoding=\"async\">"), one);
+            String two = new String(Files.readAllBytes(destination.resolve("doc").resolve("two.html")), "UTF-8");
+            assertTrue(two.contains("<img src=\"https://example.com/c.png\">"), two);
+        }
+    }
+}
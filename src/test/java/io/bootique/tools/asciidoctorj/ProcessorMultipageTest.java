@@ -1,14 +1,31 @@
 package io.bootique.tools.asciidoctorj;
 
+import org.jsoup.Jsoup;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentMatchers;
 
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 class ProcessorMultipageTest {
@@ -20,8 +37,9 @@ class ProcessorMultipageTest {
         String content = getTestContent();
         ProcessorContext context = getContext(false);
 
-        String processed = multipage.process(context, content);
-        assertEquals(content, processed);
+        DocumentContent processed = new DocumentContent(content);
+        multipage.process(context, processed);
+        assertEquals(content, processed.html());
     }
 
     @Test
@@ -29,7 +47,8 @@ class ProcessorMultipageTest {
         String content = getTestContent();
         ProcessorContext context = getContext(true);
 
-        String processed = multipage.process(context, content);
+        DocumentContent processed = new DocumentContent(content);
+        multipage.process(context, processed);
         assertEquals("<div id=\"preamble\">\n" +
                 " <div class=\"sectionbody\">\n" +
                 "  <div class=\"paragraph\">\n" +
@@ -40,7 +59,277 @@ class ProcessorMultipageTest {
                 "<ul>\n" +
                 "<li><a href=\"/getting_started_with_dflib\">Getting Started with DFLib</a>\n" +
                 "<li><a href=\"/main_data_structures\">Main Data Structures</a>\n" +
-                "</ul>", processed);
+                "</ul>", processed.html());
+    }
+
+    @Test
+    void anchors() throws IOException {
+        for(String resource : new String[]{"docs.html", "book.html"}) {
+            for(int level = 1; level <= 3; level++) {
+                String expected = readResource("anchors/" + resource.replace(".html", "-" + level + ".txt"));
+                assertEquals(expected, processAnchors(resource, level), resource + " on level " + level);
+            }
+        }
+    }
+
+    @Test
+    void headerPlaceholders() throws IOException {
+        Map<String, String> pages = new LinkedHashMap<>();
+        ProcessorContext context = getContext(2, pages);
+        when(context.docInfo().multipageHeader()).thenReturn("{title}|{id}|{level}|{weight}|{parent}|{prev}|{next}\n");
+
+        new ProcessorMultipage().process(context, new DocumentContent(readResource("book.html")));
+
+        assertEquals("Getting Started|getting_started|1|10||" +
+                "|/docs/book/installation", firstLine(pages.get("book/getting_started.html")));
+        assertEquals("Installation|installation|2|20|/docs/book/getting_started|/docs/book/getting_started" +
+                "|/docs/book/configuration", firstLine(pages.get("book/installation.html")));
+        assertEquals("Extensions|extensions|2|90|/docs/book/advanced_usage|/docs/book/performance" +
+                "|", firstLine(pages.get("book/extensions.html")));
+    }
+
+    @Test
+    void streaming(@TempDir Path destination) throws IOException {
+        for(int level = 1; level <= 3; level++) {
+            Path buffered = destination.resolve("buffered-" + level);
+            Path streamed = destination.resolve("streamed-" + level);
+            String bufferedIndex = processToDirectory(buffered, level, false);
+            String streamedIndex = processToDirectory(streamed, level, true);
+
+            assertEquals(bufferedIndex, streamedIndex);
+            Map<Path, String> bufferedFiles = readFiles(buffered);
+            assertFalse(bufferedFiles.isEmpty());
+            assertEquals(bufferedFiles, readFiles(streamed));
+        }
+    }
+
+    @Test
+    void parallel(@TempDir Path destination) throws IOException {
+        for(int level = 1; level <= 3; level++) {
+            Path sequential = destination.resolve("sequential-" + level);
+            String sequentialIndex = processToDirectory(sequential, level, false);
+            Map<Path, String> sequentialFiles = readFiles(sequential);
+            for(boolean streaming : new boolean[]{false, true}) {
+                Path parallel = destination.resolve("parallel-" + level + "-" + streaming);
+                assertEquals(sequentialIndex, processToDirectory(parallel, level, streaming, true));
+                assertEquals(sequentialFiles, readFiles(parallel));
+            }
+        }
+    }
+
+    @Test
+    void streamEngine(@TempDir Path destination) throws IOException {
+        Map<String, String> documents = new LinkedHashMap<>();
+        documents.put("docs.html", readResource("docs.html"));
+        documents.put("book.html", readResource("book.html"));
+        documents.put("synthetic", SyntheticBook.html(300));
+        for(String resource : documents.keySet()) {
+            for(int level = 0; level <= 3; level++) {
+                Path dom = destination.resolve(resource + "-dom-" + level);
+                Path stream = destination.resolve(resource + "-stream-" + level);
+                String html = documents.get(resource);
+                String domIndex = split(dom, html, level, false);
+                assertEquals(domIndex, split(stream, html, level, true), resource + " on level " + level);
+
+                Map<Path, String> domFiles = readFiles(dom);
+                assertFalse(domFiles.isEmpty());
+                assertEquals(domFiles, readFiles(stream), resource + " on level " + level);
+            }
+        }
+    }
+
+    @Test
+    void heapUsage(@TempDir Path destination) throws IOException {
+        String html = SyntheticBook.html(10_000, false);
+
+        ContentWriter lazyWriter = splitToWriter(destination.resolve("lazy"), html, false);
+        ContentWriter eagerWriter = splitToWriter(destination.resolve("eager"), html, true);
+
+        // only the ToC is kept in memory, pages are rendered when they are written
+        long pagesChars = eagerWriter.bufferedChars();
+        assertTrue(pagesChars > html.length() / 2, "Eager pages: " + pagesChars);
+        assertEquals(lazyWriter.getContent("book.toc.html", null).length(), lazyWriter.bufferedChars());
+        assertEquals(eagerWriter.contentCount(), lazyWriter.contentCount());
+
+        lazyWriter.flush();
+        eagerWriter.flush();
+        assertEquals(readFiles(destination.resolve("eager")), readFiles(destination.resolve("lazy")));
+    }
+
+    private static ContentWriter splitToWriter(Path destination, String html, boolean parallel) {
+        DocInfo docInfo = new DocInfo("book");
+        docInfo.multipage = true;
+        docInfo.multipageLevel = 3;
+        docInfo.multipageParallel = parallel;
+
+        InternalLogger logger = mock(InternalLogger.class);
+        ContentWriter writer = new ContentWriter(destination.toString(), docInfo, logger);
+        new ProcessorMultipage().process(new ProcessorContext(docInfo, writer, logger), new DocumentContent(html));
+        return writer;
+    }
+
+    @Test
+    void incremental(@TempDir Path destination) throws IOException {
+        Path incremental = destination.resolve("incremental");
+        Path pages = incremental.resolve("book");
+        InternalLogger logger = processIncremental(incremental, SyntheticBook.html(30));
+        verify(logger).info("Pages of the 'book' document: 10 added, 0 changed, 0 removed, 0 unchanged");
+        assertTrue(Files.exists(pages.resolve(PageManifest.FILE_NAME)));
+
+        Path page = pages.resolve(Section.normalizeId(SyntheticBook.id(1)) + ".html");
+        FileTime oldTime = FileTime.fromMillis(System.currentTimeMillis() - 60_000);
+        Files.setLastModifiedTime(page, oldTime);
+        logger = processIncremental(incremental, SyntheticBook.html(30));
+        verify(logger).info("Pages of the 'book' document: 0 added, 0 changed, 0 removed, 10 unchanged");
+        assertEquals(oldTime, Files.getLastModifiedTime(page));
+
+        // removed sections are deleted, result is the same as for a clean build
+        logger = processIncremental(incremental, SyntheticBook.html(14));
+        verify(logger).info("Pages of the 'book' document: 0 added, 4 changed, 5 removed, 1 unchanged");
+        Path clean = destination.resolve("clean");
+        processIncremental(clean, SyntheticBook.html(14));
+        assertEquals(readFiles(clean), readFiles(incremental));
+    }
+
+    private static InternalLogger processIncremental(Path destination, String html) {
+        DocInfo docInfo = new DocInfo("book");
+        docInfo.multipage = true;
+        docInfo.multipageLevel = 2;
+        docInfo.multipageIncremental = true;
+
+        InternalLogger logger = mock(InternalLogger.class);
+        ContentWriter writer = new ContentWriter(destination.toString(), docInfo, logger);
+        new ProcessorMultipage().process(new ProcessorContext(docInfo, writer, logger), new DocumentContent(html));
+        writer.flush();
+        return logger;
+    }
+
+    private String processToDirectory(Path destination, int level, boolean streaming) throws IOException {
+        return processToDirectory(destination, level, streaming, false);
+    }
+
+    private String processToDirectory(Path destination, int level, boolean streaming, boolean parallel) throws IOException {
+        DocInfo docInfo = mock(DocInfo.class);
+        when(docInfo.multipageParallel()).thenReturn(parallel);
+        when(docInfo.isMultipage()).thenReturn(true);
+        when(docInfo.multipageLevel()).thenReturn(level);
+        when(docInfo.multipageStreaming()).thenReturn(streaming);
+        when(docInfo.multipageHeader()).thenReturn("---\ntitle: {title}\nweight: {weight}\n---\n");
+        when(docInfo.multipageRef()).thenReturn("/docs/");
+        when(docInfo.documentName()).thenReturn("book");
+
+        InternalLogger logger = mock(InternalLogger.class);
+        ContentWriter writer = new ContentWriter(destination.toString(), docInfo, logger);
+        ProcessorContext context = new ProcessorContext(docInfo, writer, logger);
+
+        DocumentContent content = new DocumentContent(readResource("book.html"));
+        new ProcessorToC().process(context, content);
+        new ProcessorMultipage().process(context, content);
+        writer.flush();
+        return content.html();
+    }
+
+    private static String split(Path destination, String html, int level, boolean streamEngine) {
+        DocInfo docInfo = mock(DocInfo.class);
+        when(docInfo.isMultipage()).thenReturn(true);
+        when(docInfo.multipageLevel()).thenReturn(level);
+        when(docInfo.multipageStreamEngine()).thenReturn(streamEngine);
+        when(docInfo.multipageHeader()).thenReturn("---\ntitle: {title}\nweight: {weight}\nparent: {parent}\n---\n");
+        when(docInfo.multipageRef()).thenReturn("/docs/");
+        when(docInfo.documentName()).thenReturn("book");
+        when(docInfo.searchIndex()).thenReturn(true);
+
+        InternalLogger logger = mock(InternalLogger.class);
+        ContentWriter writer = new ContentWriter(destination.toString(), docInfo, logger);
+        ProcessorContext context = new ProcessorContext(docInfo, writer, logger);
+
+        DocumentContent content = new DocumentContent(html);
+        new ProcessorToC().process(context, content);
+        new ProcessorMultipage().process(context, content);
+        writer.flush();
+        return content.html();
+    }
+
+    private static Map<Path, String> readFiles(Path root) throws IOException {
+        Map<Path, String> files = new TreeMap<>();
+        try(Stream<Path> paths = Files.walk(root)) {
+            for(Path path : (Iterable<Path>) paths.filter(Files::isRegularFile)::iterator) {
+                files.put(root.relativize(path), new String(Files.readAllBytes(path), StandardCharsets.UTF_8));
+            }
+        }
+        return files;
+    }
+
+    /**
+     * Process document and collect all references from the generated pages
+     */
+    private String processAnchors(String resource, int level) throws IOException {
+        Map<String, String> pages = new LinkedHashMap<>();
+        ProcessorContext context = getContext(level, pages);
+
+        DocumentContent content = new DocumentContent(readResource(resource));
+        new ProcessorToC().process(context, content);
+        new ProcessorMultipage().process(context, content);
+        pages.put("index", content.html());
+
+        StringBuilder sb = new StringBuilder();
+        pages.forEach((name, page) -> {
+            sb.append("== ").append(name).append("\n");
+            Jsoup.parseBodyFragment(page).select("a[href]").forEach(a -> {
+                sb.append(a.attr("href"));
+                if(a.hasAttr("id")) {
+                    sb.append(" id=").append(a.id());
+                }
+                sb.append("\n");
+            });
+        });
+        return sb.toString();
+    }
+
+    private static ProcessorContext getContext(int level, Map<String, String> pages) {
+        DocInfo docInfo = mock(DocInfo.class);
+
+        when(docInfo.isMultipage()).thenReturn(true);
+        when(docInfo.multipageLevel()).thenReturn(level);
+        when(docInfo.multipageHeader()).thenReturn("---\n---\n");
+        when(docInfo.multipageRef()).thenReturn("/docs/");
+        when(docInfo.documentName()).thenReturn("book");
+
+        ContentWriter writer = mock(ContentWriter.class);
+        doAnswer(invocation -> pages.put(invocation.getArgument(0), invocation.getArgument(1).toString()))
+                .when(writer).addContent(anyString(), any(CharSequence.class));
+        doAnswer(invocation -> pages.put(pageName(invocation.getArgument(0), invocation.getArgument(1)),
+                        invocation.getArgument(2).toString()))
+                .when(writer).replaceContent(anyString(), any(), any(CharSequence.class));
+        doAnswer(invocation -> pages.put(pageName(invocation.getArgument(0), invocation.getArgument(1)),
+                        invocation.<Supplier<CharSequence>>getArgument(2).get().toString()))
+                .when(writer).replaceContent(anyString(), any(), ArgumentMatchers.<Supplier<CharSequence>>any());
+        when(writer.getContent(anyString(), isNull())).then(invocation -> pages.get(invocation.<String>getArgument(0)));
+        InternalLogger logger = mock(InternalLogger.class);
+        return new ProcessorContext(docInfo, writer, logger);
+    }
+
+    private static String firstLine(String page) {
+        return page.substring(0, page.indexOf('\n'));
+    }
+
+    private static String pageName(String fileName, String folder) {
+        return folder == null ? fileName : folder + "/" + fileName;
+    }
+
+    private String readResource(String resource) throws IOException {
+        try(InputStream is = getClass().getClassLoader().getResourceAsStream(resource)) {
+            assertNotNull(is, "Resource not found: " + resource);
+            try(BufferedReader reader = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8))) {
+                StringBuilder sb = new StringBuilder();
+                char[] buffer = new char[8192];
+                int read;
+                while ((read = reader.read(buffer)) != -1) {
+                    sb.append(buffer, 0, read);
+                }
+                return sb.toString();
+            }
+        }
     }
 
     private static ProcessorContext getContext(boolean multipage) {
@@ -0,0 +1,67 @@
+package io.bootique.tools.asciidoctorj;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Scanner;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class SearchIndexTest {
+
+    @TempDir
+    Path destination;
+
+    @Test
+    void tokenize() {
+        assertEquals("getting started with dflib 2", SearchIndex.tokenize("  Getting started, with \"DFLib\" 2!\n", 0));
+        assertEquals("getting started", SearchIndex.tokenize("Getting started, with DFLib", 18));
+        assertEquals("", SearchIndex.tokenize("...", 10));
+    }
+
+    @Test
+    void multipageIndex() throws IOException {
+        DocInfo docInfo = new DocInfo("book");
+        docInfo.multipage = true;
+        docInfo.multipageLevel = 2;
+        docInfo.multipageRef = "/docs/";
+        docInfo.searchIndex = true;
+        docInfo.searchIndexTextLength = 40;
+
+        String index = process(docInfo);
+        assertTrue(index.startsWith("{\"document\":\"book\",\"pages\":[{\"id\":\"getting_started\","
+                + "\"title\":\"Getting Started\",\"url\":\"/docs/book/getting_started\",\"path\":[],\"text\":\"\"},"), index);
+        assertTrue(index.contains("{\"id\":\"installation\",\"title\":\"Installation\","
+                + "\"url\":\"/docs/book/installation\",\"path\":[\"Getting Started\"],\"text\":\"installation"), index);
+        assertTrue(index.indexOf("\"id\":\"queries\"") < index.indexOf("\"id\":\"filtering\""));
+        assertTrue(index.endsWith("}]}\n"));
+
+        // same content on a rebuild
+        assertEquals(index, process(docInfo));
+
+        // same content when each section is parsed on its own
+        docInfo.multipageStreamEngine = true;
+        assertEquals(index, process(docInfo));
+    }
+
+    private String process(DocInfo docInfo) throws IOException {
+        InternalLogger logger = mock(InternalLogger.class);
+        ContentWriter writer = new ContentWriter(destination.toString(), docInfo, logger);
+        new ProcessorMultipage().process(new ProcessorContext(docInfo, writer, logger), new DocumentContent(readResource()));
+        writer.flush();
+        return new String(Files.readAllBytes(destination.resolve("book.search.json")), StandardCharsets.UTF_8);
+    }
+
+    private String readResource() throws IOException {
+        try(InputStream is = getClass().getClassLoader().getResourceAsStream("book.html")) {
+            assertNotNull(is);
+            return new Scanner(is, StandardCharsets.UTF_8.name()).useDelimiter("\\A").next();
+        }
+    }
+}
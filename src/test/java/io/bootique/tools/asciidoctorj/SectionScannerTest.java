@@ -0,0 +1,58 @@
+package io.bootique.tools.asciidoctorj;
+
+import org.jsoup.Jsoup;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class SectionScannerTest {
+
+    @Test
+    void inlineText() {
+        String[] headers = {
+                "<a class=\"anchor\" href=\"#_intro\"></a>1. Intro",
+                "  Getting <code>DataFrame</code>\n &amp; <em>Series</em>  ",
+                "Chapter&#160;2. Queries &lt;T&gt;",
+                "Soft­hyphen a < b"
+        };
+        for(String header : headers) {
+            String expected = Jsoup.parseBodyFragment("<h2>" + header + "</h2>").body().child(0).text();
+            assertEquals(expected, SectionScanner.inlineText(header, 0, header.length()), header);
+        }
+
+        String lineBreak = "Title<br>Subtitle";
+        assertNull(SectionScanner.inlineText(lineBreak, 0, lineBreak.length()));
+    }
+
+    @Test
+    void scan() {
+        String html = "<div id=\"preamble\"><p>Preamble</p></div>\n"
+                + "<div class=\"sect1\" id=\"s1\">\n<h2 id=\"_one\">One <code>&lt;1&gt;</code></h2>\n"
+                + "<script>var s = '<div class=\"sect1\">';</script>\n"
+                + "<!-- <div> -->\n"
+                + "<div class=\"sect2\">\n<h3 id=\"_one_one\">One One</h3>\n<p id='a1'>Text</p>\n</div>\n"
+                + "<div class=\"sect2\">\n<p>No header</p>\n</div>\n"
+                + "</div>\n"
+                + "<div class=\"sect1 appendix\">\n<h2 id=\"_two\">Two</h2>\n<br/>\n</div>";
+
+        InternalLogger logger = mock(InternalLogger.class);
+        SectionScanner scanner = new SectionScanner(html, 2, logger);
+        List<Section> sections = scanner.scan();
+
+        assertEquals(2, sections.size());
+        assertEquals("One <1>", sections.get(0).title());
+        assertEquals(1, sections.get(0).subsections().size());
+        assertEquals("one_one", sections.get(0).subsections().get(0).id());
+        assertEquals("two", sections.get(1).id());
+
+        assertNull(scanner.anchorIndex().get("s1"));
+        assertEquals("_one", scanner.anchorIndex().get("_one"));
+        assertEquals("_one_one", scanner.anchorIndex().get("a1"));
+
+        assertEquals("One One", scanner.sectionElement(sections.get(0).subsections().get(0)).child(0).text());
+        assertEquals("<div id=\"preamble\">\n <p>Preamble</p>\n</div>", scanner.preambleHtml());
+    }
+}
@@ -0,0 +1,55 @@
+package io.bootique.tools.asciidoctorj;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SegmentedContentTest {
+
+    @Test
+    void splice() throws IOException {
+        String html = "<div>before</div><div id=\"toc\">toc</div><div>after</div>";
+        int start = html.indexOf("<div id=\"toc\"");
+        int end = html.indexOf("<div>after");
+
+        SegmentedContent content = new SegmentedContent()
+                .append("---\n---\n")
+                .append(html, 0, start)
+                .append(new StringBuilder("<p>"), 0, 3)
+                .append(html, end, html.length());
+        String expected = "---\n---\n<div>before</div><p><div>after</div>";
+
+        assertEquals(expected.length(), content.length());
+        assertEquals(expected, content.toString());
+        for(int i = 0; i < expected.length(); i++) {
+            assertEquals(expected.charAt(i), content.charAt(i));
+        }
+        assertEquals(expected.substring(5, 30), content.subSequence(5, 30).toString());
+
+        StringWriter writer = new StringWriter();
+        content.writeTo(writer);
+        assertEquals(expected, writer.toString());
+    }
+
+    @Test
+    void documentContent() {
+        String html = "<div id=\"toc\">toc</div><div>content</div>";
+        DocumentContent content = new DocumentContent(html);
+        content.remove(0, html.indexOf("<div>content"));
+        content.prepend("---\n---\n");
+
+        assertInstanceOf(SegmentedContent.class, content.chars());
+        assertEquals("---\n---\n<div>content</div>", content.html());
+        assertEquals("content", content.dom().select("div").text());
+    }
+
+    @Test
+    void outOfBounds() {
+        SegmentedContent content = new SegmentedContent().append("abc");
+        assertThrows(IndexOutOfBoundsException.class, () -> content.charAt(3));
+        assertThrows(IndexOutOfBoundsException.class, () -> content.append("abc", 2, 4));
+    }
+}
@@ -0,0 +1,130 @@
+package io.bootique.tools.asciidoctorj;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Generates HTML in a form produced by Asciidoctor for a book with a given number of sections.
+ * <p>
+ * Sections are nested up to the third level, each section has a paragraph with cross-references,
+ * some of them have a code listing or an admonition block with an icon.
+ */
+class SyntheticBook {
+
+    // each top level section has 3 subsections with 3 subsections each
+    private static final int CHAPTER_SIZE = 13;
+
+    private SyntheticBook() {
+    }
+
+    static String html(int sections) {
+        return html(sections, true);
+    }
+
+    static String html(int sections, boolean withToC) {
+        int[] levels = new int[sections];
+        for(int i = 0; i < sections; i++) {
+            int position = i % CHAPTER_SIZE;
+            levels[i] = position == 0 ? 1 : (position - 1) % 4 == 0 ? 2 : 3;
+        }
+
+        StringBuilder sb = new StringBuilder(sections * 1024);
+        if(withToC) {
+            appendToC(sb, levels);
+        }
+        sb.append("<div id=\"preamble\">\n<div class=\"sectionbody\">\n<div class=\"paragraph\">\n")
+                .append("<p>Synthetic book with ").append(sections).append(" sections, see <a href=\"#")
+                .append(id(sections / 2)).append("\">").append(title(sections / 2)).append("</a>.</p>\n")
+                .append("</div>\n</div>\n</div>\n");
+
+        List<Integer> openSections = new ArrayList<>();
+        for(int i = 0; i < sections; i++) {
+            int level = levels[i];
+            while(!openSections.isEmpty() && openSections.get(openSections.size() - 1) >= level) {
+                closeSection(sb, openSections.remove(openSections.size() - 1));
+            }
+            openSections.add(level);
+
+            sb.append("<div class=\"sect").append(level).append("\">\n")
+                    .append("<h").append(level + 1).append(" id=\"").append(id(i)).append("\">")
+                    .append(title(i)).append("</h").append(level + 1).append(">\n");
+            if(level == 1) {
+                sb.append("<div class=\"sectionbody\">\n");
+            }
+            appendSectionBody(sb, i, sections);
+        }
+        for(int i = openSections.size() - 1; i >= 0; i--) {
+            closeSection(sb, openSections.get(i));
+        }
+        return sb.toString();
+    }
+
+    private static void appendToC(StringBuilder sb, int[] levels) {
+        sb.append("<div id=\"toc\" class=\"toc\">\n<div id=\"toctitle\">Table of Contents</div>\n");
+        int currentLevel = 0;
+        for(int i = 0; i < levels.length; i++) {
+            int level = levels[i];
+            if(level > currentLevel) {
+                for(int l = currentLevel + 1; l <= level; l++) {
+                    sb.append("\n<ul class=\"sectlevel").append(l).append("\">\n");
+                }
+            } else {
+                sb.append("</li>\n");
+                for(int l = currentLevel; l > level; l--) {
+                    sb.append("</ul>\n</li>\n");
+                }
+            }
+            currentLevel = level;
+            sb.append("<li><a href=\"#").append(id(i)).append("\">").append(title(i)).append("</a>");
+        }
+        sb.append("</li>\n");
+        for(int l = currentLevel; l > 1; l--) {
+            sb.append("</ul>\n</li>\n");
+        }
+        sb.append("</ul>\n</div>\n");
+    }
+
+    private static void appendSectionBody(StringBuilder sb, int i, int sections) {
+        int forward = (i * 7 + 3) % sections;
+        int backward = i / 2;
+        sb.append("<div class=\"paragraph\">\n<p>Section ").append(i)
+                .append(" text with some <code>inline code</code> and references to <a href=\"#")
+                .append(id(forward)).append("\">").append(title(forward)).append("</a> and <a href=\"#")
+                .append(id(backward)).append("\">").append(title(backward)).append("</a>, also an <a href=\"#")
+                .append("anchor_").append(forward).append("\">explicit anchor</a>.</p>\n</div>\n")
+                .append("<div id=\"anchor_").append(i).append("\" class=\"paragraph\">\n<p>Paragraph with an anchor. ")
+                .append("Lorem ipsum dolor sit amet, consectetur adipiscing elit, sed do eiusmod tempor incididunt ")
+                .append("ut labore et dolore magna aliqua. Ut enim ad minim veniam, quis nostrud exercitation.</p>\n</div>\n");
+        if(i % 3 == 0) {
+            sb.append("<div class=\"listingblock\">\n<div class=\"content\">\n")
+                    .append("<pre class=\"CodeRay highlight\"><code data-lang=\"java\">DataFrame df = DataFrame\n")
+                    .append("        .foldByRow(<span class=\"string\"><span class=\"delimiter\">&quot;</span>")
+                    .append("<span class=\"content\">a</span><span class=\"delimiter\">&quot;</span></span>)\n")
+                    .append("        .of(<span class=\"integer\">").append(i).append("</span>);</code></pre>\n")
+                    .append("</div>\n</div>\n");
+        }
+        if(i % 4 == 1) {
+            String[] icons = {"note", "tip", "warning", "important", "caution"};
+            String icon = icons[i % icons.length];
+            sb.append("<div class=\"admonitionblock ").append(icon).append("\">\n<table>\n<tr>\n<td class=\"icon\">\n")
+                    .append("<i class=\"fa icon-").append(icon).append("\" title=\"").append(icon).append("\"></i>\n")
+                    .append("</td>\n<td class=\"content\">\nAdmonition in section ").append(i).append(".\n</td>\n")
+                    .append("</tr>\n</table>\n</div>\n");
+        }
+    }
+
+    private static void closeSection(StringBuilder sb, int level) {
+        if(level == 1) {
+            sb.append("</div>\n");
+        }
+        sb.append("</div>\n");
+    }
+
+    static String id(int i) {
+        return "_section_" + i;
+    }
+
+    static String title(int i) {
+        return "Section " + i;
+    }
+}
@@ -0,0 +1,23 @@
+package io.bootique.tools.asciidoctorj;
+
+/**
+ * Third-party processor, registered with the ServiceLoader in a dedicated class loader by {@link ProcessorChainTest},
+ * marks paragraphs when "test-processor" attribute is set
+ */
+public class TestContentProcessor implements ContentProcessor {
+
+    @Override
+    public String name() {
+        return "test";
+    }
+
+    @Override
+    public boolean isApplicable(ProcessorContext context, DocumentContent content) {
+        return context.attribute("test-processor", null) != null;
+    }
+
+    @Override
+    public void process(ProcessorContext context, DocumentContent content) {
+        content.dom().select("div.paragraph").addClass(context.attribute("test-processor", null));
+    }
+}
@@ -0,0 +1,83 @@
+package io.bootique.tools.asciidoctorj;
+
+import org.jsoup.Jsoup;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class TocDataTest {
+
+    @Test
+    void fromHtml() {
+        String toc = "<div id=\"toc\" class=\"toc\">\n<div id=\"toctitle\">Table of Contents</div>\n"
+                + "<ul class=\"sectlevel1\">\n"
+                + "<li><a href=\"#_intro\">1. Intro</a>\n"
+                + "<ul class=\"sectlevel2\">\n<li><a href=\"#_install\">1.1. Install &amp; Run</a></li>\n</ul>\n</li>\n"
+                + "<li><a href=\"/docs/book/usage\" id=\"usage\">2. Usage</a></li>\n"
+                + "</ul>\n</div>";
+
+        String json = TocData.fromHtml("book", Jsoup.parseBodyFragment(toc).body()).toJson();
+        assertEquals("{\n"
+                + "  \"document\": \"book\",\n"
+                + "  \"entries\": [\n"
+                + "    {\n"
+                + "      \"id\": \"_intro\",\n"
+                + "      \"title\": \"1. Intro\",\n"
+                + "      \"href\": \"#_intro\",\n"
+                + "      \"level\": 1,\n"
+                + "      \"children\": [\n"
+                + "        {\n"
+                + "          \"id\": \"_install\",\n"
+                + "          \"title\": \"1.1. Install & Run\",\n"
+                + "          \"href\": \"#_install\",\n"
+                + "          \"level\": 2,\n"
+                + "          \"children\": []\n"
+                + "        }\n"
+                + "      ]\n"
+                + "    },\n"
+                + "    {\n"
+                + "      \"id\": \"usage\",\n"
+                + "      \"title\": \"2. Usage\",\n"
+                + "      \"href\": \"/docs/book/usage\",\n"
+                + "      \"level\": 1,\n"
+                + "      \"children\": []\n"
+                + "    }\n"
+                + "  ]\n"
+                + "}\n", json);
+    }
+
+    @Test
+    void fromSections() {
+        Section install = new Section("_install", "Install", null);
+        Section intro = new Section("_intro", "Intro", null, Collections.singletonList(install));
+        Section usage = new Section("_usage", "Usage", null);
+
+        String json = TocData.fromSections("book", Arrays.asList(intro, usage), id -> "/book/" + id).toJson();
+        assertTrue(json.contains("\"id\": \"intro\",\n      \"title\": \"Intro\",\n      \"href\": \"/book/intro\""), json);
+        assertTrue(json.contains("\"id\": \"install\",\n          \"title\": \"Install\",\n"
+                + "          \"href\": \"/book/install\",\n          \"level\": 2"), json);
+        assertTrue(json.indexOf("\"id\": \"install\"") < json.indexOf("\"id\": \"usage\""), json);
+    }
+
+    @Test
+    void multipageLinks() {
+        DocInfo docInfo = new DocInfo("book");
+        docInfo.multipage = true;
+        docInfo.multipageRef = "/docs/";
+        docInfo.tocDataFile = "../data/book.json";
+
+        InternalLogger logger = mock(InternalLogger.class);
+        ContentWriter writer = new ContentWriter("target", docInfo, logger);
+        HugoExtension.process(new ProcessorContext(docInfo, writer, logger), SyntheticBook.html(20));
+
+        String json = writer.getContent("../data/book.json", null);
+        assertNotNull(json);
+        assertTrue(json.contains("\"id\": \"section_0\",\n      \"title\": \"Section 0\",\n"
+                + "      \"href\": \"/docs/book/section_0\",\n      \"level\": 1"), json);
+        assertTrue(json.contains("\"href\": \"/docs/book/section_0#_section_1\",\n          \"level\": 2"), json);
+    }
+}